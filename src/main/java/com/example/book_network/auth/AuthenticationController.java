@@ -17,7 +17,7 @@ public class AuthenticationController {
     @PostMapping("/register")
     @ResponseStatus(HttpStatus.ACCEPTED)
     public ResponseEntity<String> register(
-            @RequestBody @Valid RegistrationRequest request) throws MessagingException {
+            @RequestBody @Valid RegistrationRequest request) {
         service.register(request);
         return ResponseEntity.accepted().build();
     }
@@ -29,11 +29,27 @@ public class AuthenticationController {
         return ResponseEntity.ok(service.authenticate(request));
     }
 
+    @PostMapping("/refresh-token")
+    public ResponseEntity<AuthenticationResponse> refreshToken(
+            @RequestBody @Valid RefreshTokenRequest request
+    ){
+        return ResponseEntity.ok(service.refreshToken(request));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @RequestBody @Valid RefreshTokenRequest request
+    ){
+        service.logout(request);
+        return ResponseEntity.noContent().build();
+    }
+
     @PostMapping("/activate-account")
     public void confirm(
-            @RequestParam String token
+            @RequestParam String token,
+            @RequestParam(required = false) String email
     ) throws MessagingException {
-        service.activateAccount(token);
+        service.activateAccount(token, email);
     }
 
 }
@@ -11,4 +11,5 @@ public class AuthenticationResponse {
 
 
     private String token;
+    private String refreshToken;
 }
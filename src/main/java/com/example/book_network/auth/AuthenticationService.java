@@ -4,6 +4,7 @@ import com.example.book_network.email.EmailService;
 import com.example.book_network.email.EmailTemplateName;
 import com.example.book_network.role.RoleRepository;
 import com.example.book_network.security.JwtService;
+import com.example.book_network.security.UserDetailsServiceImpl;
 import com.example.book_network.user.Token;
 import com.example.book_network.user.TokenRepository;
 import com.example.book_network.user.User;
@@ -17,6 +18,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
@@ -28,6 +30,9 @@ import java.util.List;
 
 public class AuthenticationService {
 
+    // a million codes against the handful live at once, running out means something else is wrong
+    private static final int MAX_ACTIVATION_TOKEN_ATTEMPTS = 10;
+
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
     private final UserRepository userRepository;
@@ -35,10 +40,20 @@ public class AuthenticationService {
     private final EmailService emailService;
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final RefreshTokenService refreshTokenService;
+    private final TransactionTemplate transactionTemplate;
     @Value("${application.mailing.frontend.activation-url}")
     private String activationUrl;
 
-    public void register(RegistrationRequest request) throws MessagingException {
+    // hashed before the transaction starts: waiting for a hashing thread must not hold a pooled connection
+    public void register(RegistrationRequest request) {
+        String encodedPassword = passwordEncoder.encode(request.getPassword());
+        transactionTemplate.executeWithoutResult(status -> persistRegistration(request, encodedPassword));
+    }
+
+    // the user, its activation token and the outbox email are committed together
+    private void persistRegistration(RegistrationRequest request, String encodedPassword) {
         var userRole = roleRepository.findByName("USER")
                 // todo - better exception handling
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -46,7 +61,7 @@ public class AuthenticationService {
                 .firstName(request.getFirstName())
                 .lastName(request.getLastName())
                 .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(encodedPassword)
                 .accountLocked(false)
                 .enabled(false)
                 .roles(List.of(userRole))
@@ -55,7 +70,7 @@ public class AuthenticationService {
         sandValidationEmail(user);
     }
 
-    private void sandValidationEmail(User user) throws MessagingException {
+    private void sandValidationEmail(User user) {
 
         var newToken = generateAndSaveActivationToken(user);
         // send email
@@ -71,17 +86,25 @@ public class AuthenticationService {
     }
 
     private String generateAndSaveActivationToken(User user) {
-        //generate token
-        String generatedToken = generateActivationToken(6);
-        var token = Token.builder()
-                .token(generatedToken)
-                .createdAt(LocalDateTime.now())
-                .expiresAt(LocalDateTime.now().plusMinutes(15))
-                .user(user)
-                .build();
-        tokenRepository.save(token);
-        return generatedToken;
+        //generate token, drawing again when the code is already held by an unused token
+        LocalDateTime now = LocalDateTime.now();
+        for(int attempt = 0; attempt < MAX_ACTIVATION_TOKEN_ATTEMPTS; attempt++) {
+            String generatedToken = generateActivationToken(6);
+            if(insertActivationToken(generatedToken, now, user)) {
+                return generatedToken;
+            }
+            // the holder may only be an expired code, free it and try the same code once more
+            if(tokenRepository.retireExpired(generatedToken, now) > 0 && insertActivationToken(generatedToken, now, user)) {
+                return generatedToken;
+            }
+        }
+        throw new IllegalStateException("No free activation code after " + MAX_ACTIVATION_TOKEN_ATTEMPTS + " attempts");
     }
+
+    private boolean insertActivationToken(String token, LocalDateTime now, User user) {
+        return tokenRepository.insertIfUnused(token, now, now.plusMinutes(15), user.getId()) == 1;
+    }
+
     private String generateActivationToken(int length) {
         String characters = "0123456789";
         StringBuilder builder = new StringBuilder();
@@ -100,17 +123,37 @@ public class AuthenticationService {
                 new UsernamePasswordAuthenticationToken(request.getEmail(),
                         request.getPassword())
         );
-        var claims = new HashMap<String, Object>();
         var user = ((User) auth.getPrincipal());
+        return buildAuthenticationResponse(user, refreshTokenService.issue(user));
+    }
+
+    // no password check here, the refresh token stands in for it
+    public AuthenticationResponse refreshToken(RefreshTokenRequest request) {
+        var rotation = refreshTokenService.rotate(request.getRefreshToken());
+        return buildAuthenticationResponse(rotation.user(), rotation.refreshToken());
+    }
+
+    public void logout(RefreshTokenRequest request) {
+        refreshTokenService.revoke(request.getRefreshToken());
+    }
+
+    private AuthenticationResponse buildAuthenticationResponse(User user, String refreshToken) {
+        var claims = new HashMap<String, Object>();
         claims.put("fullName", user.getFullName());
+        claims.put("userId", user.getId());
         var jwtToken = jwtService.generateToken(claims, user);
-        return AuthenticationResponse.builder().token(jwtToken).build();
+        return AuthenticationResponse.builder()
+                .token(jwtToken)
+                .refreshToken(refreshToken)
+                .build();
     }
 
     // validate the account
     @Transactional
-    public void activateAccount(String token) throws MessagingException {
-        Token savedToken = tokenRepository.findByToken(token)
+    public void activateAccount(String token, String email) throws MessagingException {
+        Token savedToken = (email == null
+                ? tokenRepository.findFirstByTokenAndValidatedAtIsNullOrderByIdDesc(token)
+                : tokenRepository.findFirstByTokenAndUserEmailOrderByIdDesc(token, email))
                 .orElseThrow(() -> new RuntimeException("Token not found"));
         if(LocalDateTime.now().isAfter(savedToken.getExpiresAt())){
             sandValidationEmail(savedToken.getUser());
@@ -120,7 +163,9 @@ public class AuthenticationService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setEnabled(true);
         userRepository.save(user);
+        userDetailsService.evict(user.getEmail());
         savedToken.setExpiresAt(LocalDateTime.now());
+        savedToken.setValidatedAt(LocalDateTime.now());
         tokenRepository.save(savedToken);
 
 
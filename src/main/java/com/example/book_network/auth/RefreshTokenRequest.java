@@ -0,0 +1,13 @@
+package com.example.book_network.auth;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class RefreshTokenRequest {
+
+    @NotBlank(message = "refresh token is mandatory")
+    private String refreshToken;
+}
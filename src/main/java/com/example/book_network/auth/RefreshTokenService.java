@@ -0,0 +1,97 @@
+package com.example.book_network.auth;
+
+import com.example.book_network.security.TokenDenylist;
+import com.example.book_network.user.RefreshToken;
+import com.example.book_network.user.RefreshTokenRepository;
+import com.example.book_network.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenDenylist tokenDenylist;
+    private final SecureRandom secureRandom = new SecureRandom();
+    @Value("${application.security.jwt.refresh-expiration}")
+    private long refreshExpiration;
+
+    // starts a new family on login
+    public String issue(User user) {
+        return issue(user, UUID.randomUUID().toString());
+    }
+
+    // single use: the presented token is revoked and a successor in the same family is returned.
+    // presenting an already rotated token means it was copied, so the whole family and the user's access tokens are revoked
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public Rotation rotate(String rawToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+        User user = current.getUser();
+        if(current.isRevoked()) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId(), LocalDateTime.now());
+            tokenDenylist.revokeAllFor(user.getUsername());
+            throw new BadCredentialsException("Refresh token has already been used");
+        }
+        if(current.isExpired() || !user.isEnabled() || !user.isAccountNonLocked()) {
+            current.setRevokedAt(LocalDateTime.now());
+            throw new BadCredentialsException("Refresh token is no longer valid");
+        }
+        // conditional update so two concurrent refreshes with the same token cannot both succeed
+        if(refreshTokenRepository.revoke(current.getId(), LocalDateTime.now()) == 0) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId(), LocalDateTime.now());
+            tokenDenylist.revokeAllFor(user.getUsername());
+            throw new BadCredentialsException("Refresh token has already been used");
+        }
+        return new Rotation(user, issue(user, current.getFamilyId()));
+    }
+
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId(), LocalDateTime.now()));
+    }
+
+    private String issue(User user, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        var refreshToken = RefreshToken.builder()
+                .tokenHash(hash(rawToken))
+                .familyId(familyId)
+                .createdAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusNanos(refreshExpiration * 1_000_000))
+                .user(user)
+                .build();
+        refreshTokenRepository.save(refreshToken);
+        return rawToken;
+    }
+
+    // the token is 256 random bits, a fast unsalted digest is enough and keeps the lookup an index hit
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Rotation(User user, String refreshToken) {
+    }
+}
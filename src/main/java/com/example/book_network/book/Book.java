@@ -10,6 +10,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.List;
 
@@ -29,7 +30,7 @@ public class Book extends BaseEntity {
     private boolean archived;
     private boolean shareable;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id")
     private User owner;
 
@@ -39,21 +40,16 @@ public class Book extends BaseEntity {
     @OneToMany(mappedBy = "book")
     private List<BookTransactionHistory> histories;
 
-
-
-
-    @Transient
-    public double getRate(){
-        if(feedbacks == null || feedbacks.isEmpty()){
-            return 0.0;
-        }
-        var rate = this.feedbacks.stream()
-                .mapToDouble(Feedback::getNote)
-                .average()
-                .orElse(0.0);
-
-        double roundedRate = Math.round(rate * 10.0) / 10.0;
-        return roundedRate;
-
-    }
+    // rating aggregate maintained by FeedbackService and repaired by BookRatingReconciler,
+    // so reading a book's rate never loads its feedbacks. Only bulk updates write these columns,
+    // a stale entity being saved can never overwrite them
+    @Column(nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private double ratingSum;
+    @Column(nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private int ratingCount;
+    @Column(nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private double rate;
 }
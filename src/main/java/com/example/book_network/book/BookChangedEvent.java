@@ -0,0 +1,5 @@
+package com.example.book_network.book;
+
+// published whenever a change can affect how the book is found by search
+public record BookChangedEvent(Integer bookId) {
+}
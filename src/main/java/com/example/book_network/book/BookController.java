@@ -1,19 +1,31 @@
 package com.example.book_network.book;
 
+import com.example.book_network.book.file.CoverSize;
+import com.example.book_network.book.search.BookSearchResponse;
 import io.swagger.v3.oas.annotations.Parameter;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.Duration;
+
 @RestController
 @RequestMapping("books")
 @RequiredArgsConstructor
 public class BookController {
 
     private final BookService service;
+    @Value("${application.file.cover.max-age}")
+    private Duration coverMaxAge;
+    @Value("${application.file.storage.presign-expiry}")
+    private Duration presignExpiry;
     @PostMapping
     public ResponseEntity<BookResponse> saveBook(
             @RequestBody @Valid BookRequest request,
@@ -35,44 +47,101 @@ public class BookController {
     public ResponseEntity<PageResponse<BookResponse>> findAllBooks(
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "count", defaultValue = "true", required = false) boolean count,
+            @Valid BookFilter filter,
             Authentication connectedUser
 
             ){
-        return ResponseEntity.ok(service.findAllBooks(page, size, connectedUser));
+        return ResponseEntity.ok(service.findAllBooks(page, size, count, filter, connectedUser));
+    }
+
+
+    @GetMapping("/search")
+    public ResponseEntity<BookSearchResponse> searchBooks(
+            @RequestParam(name = "q", required = false) String text,
+            @RequestParam(name = "author", required = false) String author,
+            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            Authentication connectedUser
+    ){
+        return ResponseEntity.ok(service.searchBooks(text, author, page, size, connectedUser));
     }
 
+    // keyset mode, selected by the cursor parameter, an empty cursor asks for the first page
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPageResponse<BookResponse>> findAllBooksByCursor(
+            @RequestParam(name = "cursor") String cursor,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            Authentication connectedUser
+    ){
+        return ResponseEntity.ok(service.findAllBooks(cursor, size, connectedUser));
+    }
 
     @GetMapping("/owner")
     public ResponseEntity<PageResponse<BookResponse>> findBooksByOwner(
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "count", defaultValue = "true", required = false) boolean count,
+            @Valid BookFilter filter,
             Authentication connectedUser
     ){
-        return ResponseEntity.ok(service.findAllBooksByOwner(page, size, connectedUser));
+        return ResponseEntity.ok(service.findAllBooksByOwner(page, size, count, filter, connectedUser));
 
     }
 
+    // keyset mode, selected by the cursor parameter, an empty cursor asks for the first page
+    @GetMapping(value = "/owner", params = "cursor")
+    public ResponseEntity<CursorPageResponse<BookResponse>> findBooksByOwnerByCursor(
+            @RequestParam(name = "cursor") String cursor,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            Authentication connectedUser
+    ){
+        return ResponseEntity.ok(service.findAllBooksByOwner(cursor, size, connectedUser));
+    }
+
     @GetMapping("/borrowed")
     public ResponseEntity<PageResponse<BorrowedBookResponse>> findAllBorrowerBooks(
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "count", defaultValue = "true", required = false) boolean count,
             Authentication connectedUser
     ){
-        return ResponseEntity.ok(service.findAllBorrowerBooks(page, size, connectedUser));
+        return ResponseEntity.ok(service.findAllBorrowerBooks(page, size, count, connectedUser));
+
+    }
 
+    // keyset mode, selected by the cursor parameter, an empty cursor asks for the first page
+    @GetMapping(value = "/borrowed", params = "cursor")
+    public ResponseEntity<CursorPageResponse<BorrowedBookResponse>> findAllBorrowerBooksByCursor(
+            @RequestParam(name = "cursor") String cursor,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            Authentication connectedUser
+    ){
+        return ResponseEntity.ok(service.findAllBorrowerBooks(cursor, size, connectedUser));
     }
 
     @GetMapping("/returned")
     public ResponseEntity<PageResponse<BorrowedBookResponse>> findAllReturnedBooks(
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "count", defaultValue = "true", required = false) boolean count,
             Authentication connectedUser
     ){
-        return ResponseEntity.ok(service.findAllReturnedBooks(page, size, connectedUser));
+        return ResponseEntity.ok(service.findAllReturnedBooks(page, size, count, connectedUser));
 
     }
 
 
+    // keyset mode, selected by the cursor parameter, an empty cursor asks for the first page
+    @GetMapping(value = "/returned", params = "cursor")
+    public ResponseEntity<CursorPageResponse<BorrowedBookResponse>> findAllReturnedBooksByCursor(
+            @RequestParam(name = "cursor") String cursor,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            Authentication connectedUser
+    ){
+        return ResponseEntity.ok(service.findAllReturnedBooks(cursor, size, connectedUser));
+    }
+
     @PatchMapping("/shareable/{book-id}")
     public ResponseEntity<Integer> updateShareableStatus(
             @PathVariable("book-id") Integer bookId,
@@ -129,4 +198,37 @@ public class BookController {
         service.uploadBookCoverPicture(file, connectedUser, bookId);
         return ResponseEntity.ok().build();
     }
+
+    // the ETag makes spring answer conditional requests with 304,
+    // and a Resource body lets it serve Range requests with 206
+    @GetMapping("/cover/{book-id}")
+    public ResponseEntity<Resource> findBookCover(
+            @PathVariable("book-id") Integer bookId,
+            @RequestParam(name = "size", defaultValue = "original", required = false) String size,
+            Authentication connectedUser
+    ){
+        BookCover cover = service.findBookCover(bookId, CoverSize.from(size), connectedUser);
+        if(cover.location() != null) {
+            // the presigned url expires, so the redirect may only be cached for part of its lifetime
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(cover.location())
+                    .cacheControl(cover.provisional()
+                            ? CacheControl.noCache()
+                            : CacheControl.maxAge(presignExpiry.dividedBy(2)).cachePrivate())
+                    .build();
+        }
+        // a provisional cover stands in for a variant that is still being generated, so it must not be cached long
+        CacheControl cacheControl = cover.provisional()
+                ? CacheControl.noCache()
+                : cover.displayable()
+                        ? CacheControl.maxAge(coverMaxAge).cachePublic()
+                        : CacheControl.maxAge(coverMaxAge).cachePrivate();
+        return ResponseEntity.ok()
+                .contentType(cover.mediaType())
+                // browsers must not second-guess the image type from the bytes
+                .header("X-Content-Type-Options", "nosniff")
+                .eTag(cover.etag())
+                .cacheControl(cacheControl)
+                .body(cover.resource());
+    }
 }
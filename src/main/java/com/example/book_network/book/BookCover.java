@@ -0,0 +1,21 @@
+package com.example.book_network.book;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+
+import java.net.URI;
+
+public record BookCover(
+        Resource resource,
+        MediaType mediaType,
+        String etag,
+        boolean provisional,
+        // false for covers of archived or unshared books, which must stay out of shared caches
+        boolean displayable,
+        URI location) {
+
+    // the bytes are served by the storage itself, the api only answers with a redirect
+    public static BookCover redirect(URI location, boolean provisional, boolean displayable) {
+        return new BookCover(null, null, null, provisional, displayable, location);
+    }
+}
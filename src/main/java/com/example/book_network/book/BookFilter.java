@@ -0,0 +1,31 @@
+package com.example.book_network.book;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+// optional query parameters of the book list endpoints, every field left out is not filtered on
+public record BookFilter(
+        String author,
+        String isbnPrefix,
+        @DecimalMin("0") @DecimalMax("5")
+        Double minRate,
+        Boolean shareable,
+        Boolean archived,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        LocalDateTime createdFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        LocalDateTime createdTo,
+        BookSort sort) {
+
+    public boolean isEmpty() {
+        return author == null && isbnPrefix == null && minRate == null && shareable == null && archived == null
+                && createdFrom == null && createdTo == null && (sort == null || sort == BookSort.NEWEST);
+    }
+
+    public BookSort sortOrDefault() {
+        return sort == null ? BookSort.NEWEST : sort;
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.book_network.book;
 
-import com.example.book_network.book.file.FileUtils;
-import com.example.book_network.history.BookTransactionHistory;
+import com.example.book_network.book.search.IndexedBook;
+import com.example.book_network.history.BorrowedBookSummary;
+import io.micrometer.common.util.StringUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @Service
 public class BookMapper {
@@ -31,21 +33,65 @@ public class BookMapper {
             .archived(book.isArchived())
             .shareable(book.isShareable())
             .owner(book.getOwner().getFullName())
-            .cover(FileUtils.readFileFromLocation(book.getBookCover()))
+            .coverUrl(toCoverUrl(book.getId(), book.getBookCover()))
             .build();
     }
 
-    public BorrowedBookResponse toBorrowedBookResponse(BookTransactionHistory history) {
+    public BookResponse toBookResponse(BookSummary book) {
+    return BookResponse.builder()
+            .id(book.id())
+            .title(book.title())
+            .authorName(book.authorName())
+            .isbn(book.isbn())
+            .synopsis(book.synopsis())
+            .rate(book.rate())
+            .archived(book.archived())
+            .shareable(book.shareable())
+            .owner(book.owner())
+            .coverUrl(toCoverUrl(book.id(), book.bookCover()))
+            .build();
+    }
+
+    // only displayable books are indexed
+    public BookResponse toBookResponse(IndexedBook book) {
+    return BookResponse.builder()
+            .id(book.id())
+            .title(book.title())
+            .authorName(book.authorName())
+            .isbn(book.isbn())
+            .synopsis(book.synopsis())
+            .rate(book.rate())
+            .archived(false)
+            .shareable(true)
+            .owner(book.owner())
+            .coverUrl(toCoverUrl(book.id(), book.bookCover()))
+            .build();
+    }
+
+    public BorrowedBookResponse toBorrowedBookResponse(BorrowedBookSummary history) {
 
         return BorrowedBookResponse.builder()
-                .id(history.getBook().getId())
-                .title(history.getBook().getTitle())
-                .authorName(history.getBook().getAuthorName())
-                .isbn(history.getBook().getIsbn())
-                .rate(history.getBook().getRate())
-                .returned(history.isReturned())
-                .returnApproved(history.isReturnApproved())
+                .id(history.id())
+                .title(history.title())
+                .authorName(history.authorName())
+                .isbn(history.isbn())
+                .rate(history.rate())
+                .returned(history.returned())
+                .returnApproved(history.returnApproved())
                 .build();
 
     }
+
+    // the version parameter changes with the stored file so clients can cache the url for long periods
+    private String toCoverUrl(Integer bookId, String bookCover) {
+        if(StringUtils.isBlank(bookCover)){
+            return null;
+        }
+        return ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/books/cover/{book-id}")
+                .queryParam("size", "card")
+                .queryParam("v", Integer.toHexString(bookCover.hashCode()))
+                .buildAndExpand(bookId)
+                .toUriString();
+    }
 }
@@ -0,0 +1,25 @@
+package com.example.book_network.book;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookRatingReconciler {
+
+    private final BookRepository bookRepository;
+
+    // repairs aggregates that drifted, e.g. after feedbacks were edited or deleted directly in the database
+    @Scheduled(cron = "${application.book.rating.reconcile-cron}")
+    @Transactional
+    public void reconcileRatings() {
+        int repaired = bookRepository.reconcileRatings();
+        if(repaired > 0) {
+            log.warn("Repaired the rating aggregate of {} books", repaired);
+        }
+    }
+}
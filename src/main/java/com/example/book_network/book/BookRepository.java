@@ -1,24 +1,115 @@
 package com.example.book_network.book;
 
+import com.example.book_network.book.search.IndexedBook;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
-public interface BookRepository extends JpaRepository<Book, Integer> , JpaSpecificationExecutor<Book> {
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
+public interface BookRepository extends JpaRepository<Book, Integer> , JpaSpecificationExecutor<Book>, BookSummaryRepository {
 
 
-   @Query("""
-        SELECT book
+
+    String DISPLAYABLE_BOOKS = """
+        SELECT new com.example.book_network.book.BookSummary(
+            book.id, book.title, book.authorName, book.isbn, book.synopsis,
+            CONCAT(owner.firstName, ' ', owner.lastName),
+            book.bookCover, book.rate, book.archived, book.shareable, book.createdDate)
+        From Book book
+        JOIN book.owner owner
+        Where book.archived = false
+        AND book.shareable = true
+        AND owner.id != :userId
+""";
+
+    String OWNER_BOOKS = """
+        SELECT new com.example.book_network.book.BookSummary(
+            book.id, book.title, book.authorName, book.isbn, book.synopsis,
+            CONCAT(owner.firstName, ' ', owner.lastName),
+            book.bookCover, book.rate, book.archived, book.shareable, book.createdDate)
+        From Book book
+        JOIN book.owner owner
+        Where owner.id = :ownerId
+""";
+
+    // slice variants fetch one extra row to know if there is a next page and skip the count query,
+    // the total of displayable books comes from DisplayableBookCounter
+    @Query(DISPLAYABLE_BOOKS)
+    Slice<BookSummary> findDisplayableBooksSlice(Pageable pageable, Integer userId);
+
+
+    @Query(value = OWNER_BOOKS, countQuery = """
+        SELECT COUNT(book)
+        From Book book
+        Where book.owner.id = :ownerId
+""")
+    Page<BookSummary> findAllByOwnerId(Pageable pageable, Integer ownerId);
+
+    @Query(OWNER_BOOKS)
+    Slice<BookSummary> findByOwnerIdSlice(Pageable pageable, Integer ownerId);
+
+
+    @Query("""
+        SELECT COUNT(book)
+        From Book book
+        Where book.archived = false
+        AND book.shareable = true
+""")
+    long countDisplayableBooks();
+
+
+    @Query("""
+        SELECT COUNT(book)
         From Book book
         Where book.archived = false
         AND book.shareable = true
-        AND book.owner.id != :userId
+        AND book.owner.id = :ownerId
 """)
-    Page<Book> findAllDisplayableBooks(Pageable pageable, Integer userId);
+    long countDisplayableBooksOfOwner(Integer ownerId);
+
+
+    // keyset variants: seek past the cursor instead of skipping rows with an offset, and never count.
+    // the redundant createdDate <= bound is what lets the index scan start at the cursor, postgres cannot
+    // derive a scan start from the OR alone
+    @Query("""
+        SELECT new com.example.book_network.book.BookSummary(
+            book.id, book.title, book.authorName, book.isbn, book.synopsis,
+            CONCAT(owner.firstName, ' ', owner.lastName),
+            book.bookCover, book.rate, book.archived, book.shareable, book.createdDate)
+        From Book book
+        JOIN book.owner owner
+        Where book.archived = false
+        AND book.shareable = true
+        AND owner.id != :userId
+        AND book.createdDate <= :createdDate
+        AND (book.createdDate < :createdDate OR (book.createdDate = :createdDate AND book.id < :id))
+        ORDER BY book.createdDate DESC, book.id DESC
+""")
+    List<BookSummary> findDisplayableBooksAfter(Integer userId, LocalDateTime createdDate, Integer id, Pageable pageable);
+
+
+    @Query("""
+        SELECT new com.example.book_network.book.BookSummary(
+            book.id, book.title, book.authorName, book.isbn, book.synopsis,
+            CONCAT(owner.firstName, ' ', owner.lastName),
+            book.bookCover, book.rate, book.archived, book.shareable, book.createdDate)
+        From Book book
+        JOIN book.owner owner
+        Where owner.id = :ownerId
+        AND book.createdDate <= :createdDate
+        AND (book.createdDate < :createdDate OR (book.createdDate = :createdDate AND book.id < :id))
+        ORDER BY book.createdDate DESC, book.id DESC
+""")
+    List<BookSummary> findOwnerBooksAfter(Integer ownerId, LocalDateTime createdDate, Integer id, Pageable pageable);
 
 
     @Query("""
@@ -29,4 +120,53 @@ public interface BookRepository extends JpaRepository<Book, Integer> , JpaSpecif
         and bookTransactionHistory.returnApproved = false
 """)
     boolean isAlreadyBorrowedByUser(Integer bookId, Integer userId);
+
+    boolean existsByBookCoverIn(Collection<String> bookCovers);
+
+    @Modifying
+    @Query("""
+        UPDATE Book book
+        SET book.ratingSum = book.ratingSum + :note,
+            book.ratingCount = book.ratingCount + 1,
+            book.rate = ROUND(CAST((book.ratingSum + :note) / (book.ratingCount + 1) AS BigDecimal), 1)
+        WHERE book.id = :bookId
+""")
+    int addRating(Integer bookId, double note);
+
+
+    // only rows whose aggregate drifted from the feedback table are rewritten
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        UPDATE book
+        SET rating_sum = aggregate.rating_sum,
+            rating_count = aggregate.rating_count,
+            rate = CASE WHEN aggregate.rating_count = 0 THEN 0
+                        ELSE ROUND(CAST(aggregate.rating_sum / aggregate.rating_count AS numeric), 1) END
+        FROM (
+            SELECT b.id, COALESCE(SUM(f.note), 0) AS rating_sum, COUNT(f.note) AS rating_count
+            FROM book b
+            LEFT JOIN feedback f ON f.book_id = b.id
+            GROUP BY b.id
+        ) aggregate
+        WHERE book.id = aggregate.id
+        AND (book.rating_count <> aggregate.rating_count OR book.rating_sum <> aggregate.rating_sum)
+""")
+    int reconcileRatings();
+
+    // rows for the embedded search index, only displayable books are indexed
+    String INDEXABLE_BOOKS = """
+        SELECT new com.example.book_network.book.search.IndexedBook(
+            book.id, owner.id, book.title, book.authorName, book.isbn, book.synopsis,
+            CONCAT(owner.firstName, ' ', owner.lastName), book.bookCover, book.rate)
+        From Book book
+        JOIN book.owner owner
+        Where book.archived = false
+        AND book.shareable = true
+""";
+
+    @Query(INDEXABLE_BOOKS + " AND book.id = :bookId")
+    Optional<IndexedBook> findIndexableBook(Integer bookId);
+
+    @Query(INDEXABLE_BOOKS + " AND book.id > :afterId ORDER BY book.id")
+    List<IndexedBook> findIndexableBooksAfter(Integer afterId, Pageable pageable);
 }
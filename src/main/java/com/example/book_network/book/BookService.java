@@ -1,21 +1,36 @@
 package com.example.book_network.book;
 
 import com.example.book_network.book.exception.OperationNotPremittedException;
+import com.example.book_network.book.file.BlobStorage;
+import com.example.book_network.book.file.CoverCache;
+import com.example.book_network.book.file.CoverFormat;
+import com.example.book_network.book.file.CoverImageProcessor;
+import com.example.book_network.book.file.CoverSize;
+import com.example.book_network.book.search.BookSearchEngine;
+import com.example.book_network.book.search.BookSearchResponse;
 import com.example.book_network.history.BookTransactionHistory;
 import com.example.book_network.history.BookTransactionHistoryRepository;
+import com.example.book_network.history.BorrowedBookSummary;
 import com.example.book_network.user.User;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
 
@@ -27,6 +42,14 @@ public class BookService {
     private final BookRepository bookRepository;
     private final BookTransactionHistoryRepository bookTransactionHistoryRepository;
     private final FileStorageService fileStorageService;
+    private final CoverCache coverCache;
+    private final CoverImageProcessor coverImageProcessor;
+    private final BlobStorage blobStorage;
+    private final DisplayableBookCounter displayableBookCounter;
+    private final BookSearchEngine bookSearchEngine;
+    private final ApplicationEventPublisher eventPublisher;
+    @Value("${application.file.storage.presign-expiry}")
+    private Duration presignExpiry;
     @Transactional
     public BookResponse save(@Valid BookRequest request, Authentication connectedUser) {
         User user = (User) connectedUser.getPrincipal();
@@ -35,6 +58,7 @@ public class BookService {
         book.setOwner(user);
 
         Book savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(new BookChangedEvent(savedBook.getId()));
 
         return bookMapper.toBookResponse(savedBook);
     }
@@ -47,86 +71,140 @@ public class BookService {
                 ;
     }
 
-    public PageResponse<BookResponse> findAllBooks(int page, int size, Authentication connectedUser) {
+    public PageResponse<BookResponse> findAllBooks(int page, int size, boolean count, BookFilter filter, Authentication connectedUser) {
 
         User user = (User) connectedUser.getPrincipal();
+        if(!filter.isEmpty()) {
+            return findFilteredBooks(
+                    BookSpecification.isDisplayable().and(BookSpecification.notOwnedBy(user.getId())),
+                    page, size, count, filter);
+        }
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-        Page<Book> books = bookRepository.findAllDisplayableBooks(pageable, user.getId());
+        Slice<BookSummary> books = bookRepository.findDisplayableBooksSlice(pageable, user.getId());
         List<BookResponse> bookResponses = books.stream()
                 .map(bookMapper::toBookResponse)
                 .toList();
-        return new PageResponse<>(
-                bookResponses,
-                books.getNumber(),
-                books.getSize(),
-                books.getTotalElements(),
-                books.getTotalPages(),
-                books.isFirst(),
-                books.isLast());
+        PageResponse<BookResponse> response = PageResponse.of(books, bookResponses);
+        if(count) {
+            // approximate total from a short lived cache, exact once the client reaches the last page
+            long totalElements = books.hasNext()
+                    ? Math.max(displayableBookCounter.approximateCountFor(user.getId()), pageable.getOffset() + size + 1)
+                    : pageable.getOffset() + books.getNumberOfElements();
+            response.setTotalElements(totalElements);
+            response.setTotalPages(size == 0 ? 0 : (totalElements + size - 1) / size);
+        }
+        return response;
 
     }
 
-    public PageResponse<BookResponse> findAllBooksByOwner(int page, int size, Authentication connectedUser) {
+    public BookSearchResponse searchBooks(String text, String author, int page, int size, Authentication connectedUser) {
+
+        User user = (User) connectedUser.getPrincipal();
+        String query = StringUtils.hasText(text) ? text.trim() : null;
+        String authorName = StringUtils.hasText(author) ? author.trim() : null;
+        if(query == null && authorName == null) {
+            throw new OperationNotPremittedException("Provide a search text or an author name");
+        }
+        return bookSearchEngine.search(query, authorName, page, size, user.getId());
+    }
+
+    public PageResponse<BookResponse> findAllBooksByOwner(int page, int size, boolean count, BookFilter filter, Authentication connectedUser) {
 
 
         User user = (User) connectedUser.getPrincipal();
+        if(!filter.isEmpty()) {
+            return findFilteredBooks(BookSpecification.withOwnerId(user.getId()), page, size, count, filter);
+        }
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-        Page<Book> books = bookRepository.findAll(BookSpecification.withOwnerId(user.getId()), pageable);
+        Slice<BookSummary> books = count
+                ? bookRepository.findAllByOwnerId(pageable, user.getId())
+                : bookRepository.findByOwnerIdSlice(pageable, user.getId());
         List<BookResponse> bookResponses = books.stream()
                 .map(bookMapper::toBookResponse)
                 .toList();
-        return new PageResponse<>(
-                bookResponses,
-                books.getNumber(),
-                books.getSize(),
-                books.getTotalElements(),
-                books.getTotalPages(),
-                books.isFirst(),
-                books.isLast());
+        return PageResponse.of(books, bookResponses);
 
     }
 
 
-    public PageResponse<BorrowedBookResponse> findAllBorrowerBooks(int page, int size, Authentication connectedUser) {
+    // the unfiltered listings keep their projection queries, filters are compiled into criteria predicates
+    // and projected into the same BookSummary
+    private PageResponse<BookResponse> findFilteredBooks(Specification<Book> scope, int page, int size, boolean count, BookFilter filter) {
+        Specification<Book> specification = scope.and(BookSpecification.matching(filter));
+        Pageable pageable = PageRequest.of(page, size, filter.sortOrDefault().toSort());
+        Slice<BookSummary> books = bookRepository.findSummaries(specification, pageable, count);
+        List<BookResponse> bookResponses = books.stream()
+                .map(bookMapper::toBookResponse)
+                .toList();
+        return PageResponse.of(books, bookResponses);
+    }
+
+    public PageResponse<BorrowedBookResponse> findAllBorrowerBooks(int page, int size, boolean count, Authentication connectedUser) {
 
         User user = (User) connectedUser.getPrincipal();
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
 
 
-        Page<BookTransactionHistory> allBorrowedBooks = bookTransactionHistoryRepository.findAllBorrowedBooks(pageable, user.getId());
+        Slice<BorrowedBookSummary> allBorrowedBooks = count
+                ? bookTransactionHistoryRepository.findAllBorrowedBooks(pageable, user.getId())
+                : bookTransactionHistoryRepository.findBorrowedBooksSlice(pageable, user.getId());
         List<BorrowedBookResponse> bookResponses = allBorrowedBooks.stream()
                 .map(bookMapper::toBorrowedBookResponse)
                 .toList();
-        return new PageResponse<>(
-                bookResponses,
-                allBorrowedBooks.getNumber(),
-                allBorrowedBooks.getSize(),
-                allBorrowedBooks.getTotalElements(),
-                allBorrowedBooks.getTotalPages(),
-                allBorrowedBooks.isFirst(),
-                allBorrowedBooks.isLast());
+        return PageResponse.of(allBorrowedBooks, bookResponses);
 
     }
 
-    public PageResponse<BorrowedBookResponse> findAllReturnedBooks(int page, int size, Authentication connectedUser) {
+    public PageResponse<BorrowedBookResponse> findAllReturnedBooks(int page, int size, boolean count, Authentication connectedUser) {
 
 
         User user = (User) connectedUser.getPrincipal();
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
 
 
-        Page<BookTransactionHistory> allBorrowedBooks = bookTransactionHistoryRepository.findAllReturnedBooks(pageable, user.getId());
+        Slice<BorrowedBookSummary> allBorrowedBooks = count
+                ? bookTransactionHistoryRepository.findAllReturnedBooks(pageable, user.getId())
+                : bookTransactionHistoryRepository.findReturnedBooksSlice(pageable, user.getId());
         List<BorrowedBookResponse> bookResponses = allBorrowedBooks.stream()
                 .map(bookMapper::toBorrowedBookResponse)
                 .toList();
-        return new PageResponse<>(
-                bookResponses,
-                allBorrowedBooks.getNumber(),
-                allBorrowedBooks.getSize(),
-                allBorrowedBooks.getTotalElements(),
-                allBorrowedBooks.getTotalPages(),
-                allBorrowedBooks.isFirst(),
-                allBorrowedBooks.isLast());
+        return PageResponse.of(allBorrowedBooks, bookResponses);
+    }
+
+    public CursorPageResponse<BookResponse> findAllBooks(String cursor, int size, Authentication connectedUser) {
+
+        User user = (User) connectedUser.getPrincipal();
+        PageCursor after = PageCursor.decode(cursor);
+        List<BookSummary> books = bookRepository.findDisplayableBooksAfter(
+                user.getId(), after.createdDate(), after.id(), PageRequest.of(0, size + 1));
+        return CursorPageResponse.of(books, size, BookSummary::cursor, bookMapper::toBookResponse);
+    }
+
+    public CursorPageResponse<BookResponse> findAllBooksByOwner(String cursor, int size, Authentication connectedUser) {
+
+        User user = (User) connectedUser.getPrincipal();
+        PageCursor after = PageCursor.decode(cursor);
+        List<BookSummary> books = bookRepository.findOwnerBooksAfter(
+                user.getId(), after.createdDate(), after.id(), PageRequest.of(0, size + 1));
+        return CursorPageResponse.of(books, size, BookSummary::cursor, bookMapper::toBookResponse);
+    }
+
+    public CursorPageResponse<BorrowedBookResponse> findAllBorrowerBooks(String cursor, int size, Authentication connectedUser) {
+
+        User user = (User) connectedUser.getPrincipal();
+        PageCursor after = PageCursor.decode(cursor);
+        List<BorrowedBookSummary> books = bookTransactionHistoryRepository.findBorrowedBooksAfter(
+                user.getId(), after.createdDate(), after.id(), PageRequest.of(0, size + 1));
+        return CursorPageResponse.of(books, size, BorrowedBookSummary::cursor, bookMapper::toBorrowedBookResponse);
+    }
+
+    public CursorPageResponse<BorrowedBookResponse> findAllReturnedBooks(String cursor, int size, Authentication connectedUser) {
+
+        User user = (User) connectedUser.getPrincipal();
+        PageCursor after = PageCursor.decode(cursor);
+        List<BorrowedBookSummary> books = bookTransactionHistoryRepository.findReturnedBooksAfter(
+                user.getId(), after.createdDate(), after.id(), PageRequest.of(0, size + 1));
+        return CursorPageResponse.of(books, size, BorrowedBookSummary::cursor, bookMapper::toBorrowedBookResponse);
     }
 
     public Integer updateShareableStatus(Integer bookId, Authentication connectedUser) {
@@ -141,6 +219,7 @@ public class BookService {
         }
         book.setShareable(!book.isShareable());
         bookRepository.save(book);
+        eventPublisher.publishEvent(new BookChangedEvent(bookId));
         return bookId;
     }
 
@@ -158,6 +237,7 @@ public class BookService {
         }
         book.setArchived(!book.isShareable());
         bookRepository.save(book);
+        eventPublisher.publishEvent(new BookChangedEvent(bookId));
         return bookId;
     }
 
@@ -237,9 +317,60 @@ public class BookService {
         Book book= bookRepository.findById(bookId)
                 .orElseThrow(() -> new EntityNotFoundException("No book found with the id: " + bookId));
 
-        User user = (User) connectedUser.getPrincipal();
-        var bookCover = fileStorageService.saveFile(file, user.getId());
+        var bookCover = fileStorageService.saveFile(file);
         book.setBookCover((String) bookCover);
         bookRepository.save(book);
+        eventPublisher.publishEvent(new BookChangedEvent(bookId));
+        if(bookCover != null) {
+            coverImageProcessor.generateVariants((String) bookCover);
+        }
+    }
+
+    // covers of displayable books are public, the others only for their owner and the users who borrowed them
+    public BookCover findBookCover(Integer bookId, CoverSize size, Authentication connectedUser) {
+        Book book= bookRepository.findById(bookId)
+                .orElseThrow(() -> new EntityNotFoundException("No book found with the id: " + bookId));
+        boolean displayable = !book.isArchived() && book.isShareable();
+        if(!displayable && !canSeeHiddenCover(book, connectedUser)) {
+            // same answer as an unknown id, so hidden books cannot be discovered by probing ids
+            throw new EntityNotFoundException("No book found with the id: " + bookId);
+        }
+        if(book.getBookCover() == null) {
+            throw new EntityNotFoundException("No cover found for the book with the id: " + bookId);
+        }
+
+        String coverPath = size.variantPath(book.getBookCover());
+        var presignedUrl = blobStorage.presignedUrl(coverPath, presignExpiry);
+        if(presignedUrl.isPresent()) {
+            if(size != CoverSize.ORIGINAL && !blobStorage.exists(coverPath)) {
+                // the variants are generated in the background, fall back to the uploaded file meanwhile
+                return BookCover.redirect(blobStorage.presignedUrl(book.getBookCover(), presignExpiry).orElseThrow(), true, displayable);
+            }
+            return BookCover.redirect(presignedUrl.get(), false, displayable);
+        }
+        // the cache doubles as the existence check, a variant still being generated reads as null
+        byte[] content = coverCache.read(coverPath);
+        boolean provisional = false;
+        if(content == null && size != CoverSize.ORIGINAL) {
+            coverPath = book.getBookCover();
+            content = coverCache.read(coverPath);
+            provisional = true;
+        }
+        if(content == null) {
+            throw new EntityNotFoundException("No cover found for the book with the id: " + bookId);
+        }
+        // keys are content-addressed, so the key identifies the bytes
+        String etag = "\"" + Integer.toHexString(coverPath.hashCode()) + "-" + Integer.toHexString(content.length) + "\"";
+        // never derived from anything the uploader chose, so stored bytes cannot be served as html or svg
+        MediaType mediaType = CoverFormat.fromPath(coverPath).getMediaType();
+        return new BookCover(new ByteArrayResource(content), mediaType, etag, provisional, displayable, null);
+    }
+
+    private boolean canSeeHiddenCover(Book book, Authentication connectedUser) {
+        if(connectedUser == null || !(connectedUser.getPrincipal() instanceof User user)) {
+            return false;
+        }
+        return Objects.equals(book.getOwner().getId(), user.getId())
+                || bookTransactionHistoryRepository.existsByBookIdAndUserId(book.getId(), user.getId());
     }
 }
@@ -0,0 +1,20 @@
+package com.example.book_network.book;
+
+import org.springframework.data.domain.Sort;
+
+// the id breaks ties so pages stay stable, every order is backed by an index (see V6__query_indexes.sql)
+public enum BookSort {
+    NEWEST(Sort.by(Sort.Order.desc("createdDate"), Sort.Order.desc("id"))),
+    RATING(Sort.by(Sort.Order.desc("rate"), Sort.Order.desc("id"))),
+    TITLE(Sort.by(Sort.Order.asc("title"), Sort.Order.asc("id")));
+
+    private final Sort sort;
+
+    BookSort(Sort sort) {
+        this.sort = sort;
+    }
+
+    public Sort toSort() {
+        return sort;
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.book_network.book;
 
+import jakarta.persistence.criteria.CriteriaQuery;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
 
 public class BookSpecification {
 
@@ -11,4 +15,119 @@ public class BookSpecification {
     public static Specification<Book> withOwnerId(Integer ownerId){
         return(root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("owner").get("id"), ownerId);
     }
+
+    // combines every filter present, prefixes are matched case-insensitively for the author
+    public static Specification<Book> matching(BookFilter filter){
+        Specification<Book> specification = Specification.where(null);
+        if(StringUtils.hasText(filter.author())) {
+            specification = specification.and(authorStartsWith(filter.author().trim()));
+        }
+        if(StringUtils.hasText(filter.isbnPrefix())) {
+            specification = specification.and(isbnStartsWith(filter.isbnPrefix().trim()));
+        }
+        if(filter.minRate() != null) {
+            specification = specification.and(rateAtLeast(filter.minRate()));
+        }
+        if(filter.shareable() != null) {
+            specification = specification.and(isShareable(filter.shareable()));
+        }
+        if(filter.archived() != null) {
+            specification = specification.and(isArchived(filter.archived()));
+        }
+        if(filter.createdFrom() != null || filter.createdTo() != null) {
+            specification = specification.and(createdBetween(filter.createdFrom(), filter.createdTo()));
+        }
+        return specification;
+    }
+
+    public static Specification<Book> authorStartsWith(String author){
+        return(root, query, criteriaBuilder) -> criteriaBuilder.like(
+                criteriaBuilder.lower(root.get("authorName")), escapeLike(author.toLowerCase()) + "%", '\\');
+    }
+
+    public static Specification<Book> isbnStartsWith(String prefix){
+        return(root, query, criteriaBuilder) -> criteriaBuilder.like(root.get("isbn"), escapeLike(prefix) + "%", '\\');
+    }
+
+    public static Specification<Book> rateAtLeast(double minRate){
+        return(root, query, criteriaBuilder) -> criteriaBuilder.greaterThanOrEqualTo(root.get("rate"), minRate);
+    }
+
+    public static Specification<Book> isShareable(boolean shareable){
+        return(root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("shareable"), shareable);
+    }
+
+    public static Specification<Book> isArchived(boolean archived){
+        return(root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("archived"), archived);
+    }
+
+    // either bound may be open
+    public static Specification<Book> createdBetween(LocalDateTime from, LocalDateTime to){
+        return(root, query, criteriaBuilder) -> {
+            if(from == null) {
+                return criteriaBuilder.lessThan(root.get("createdDate"), to);
+            }
+            if(to == null) {
+                return criteriaBuilder.greaterThanOrEqualTo(root.get("createdDate"), from);
+            }
+            return criteriaBuilder.and(
+                    criteriaBuilder.greaterThanOrEqualTo(root.get("createdDate"), from),
+                    criteriaBuilder.lessThan(root.get("createdDate"), to)
+            );
+        };
+    }
+
+    public static Specification<Book> isDisplayable(){
+        return(root, query, criteriaBuilder) -> criteriaBuilder.and(
+                criteriaBuilder.isTrue(root.get("shareable")),
+                criteriaBuilder.isFalse(root.get("archived"))
+        );
+    }
+
+    public static Specification<Book> notOwnedBy(Integer userId){
+        return(root, query, criteriaBuilder) -> criteriaBuilder.notEqual(root.get("owner").get("id"), userId);
+    }
+
+    // full text over title, author and synopsis through the generated search_vector column,
+    // which is not mapped on Book: the functions reach it through the alias of the id column
+    public static Specification<Book> matchesText(String text){
+        return(root, query, criteriaBuilder) -> criteriaBuilder.isTrue(
+                criteriaBuilder.function("fts_match", Boolean.class, root.get("id"), criteriaBuilder.literal(text))
+        );
+    }
+
+    // trigram match, tolerates typos and partial author names
+    public static Specification<Book> authorSimilarTo(String author){
+        return(root, query, criteriaBuilder) -> criteriaBuilder.isTrue(
+                criteriaBuilder.function("trgm_match", Boolean.class, root.get("authorName"), criteriaBuilder.literal(author))
+        );
+    }
+
+    // best matches first: text rank, then author similarity, newest books when neither is given
+    public static Specification<Book> orderByRelevance(String text, String author){
+        return(root, query, criteriaBuilder) -> {
+            if(isDataQuery(query)) {
+                if(text != null) {
+                    query.orderBy(criteriaBuilder.desc(criteriaBuilder.function(
+                            "fts_rank", Double.class, root.get("id"), criteriaBuilder.literal(text))));
+                } else if(author != null) {
+                    query.orderBy(criteriaBuilder.desc(criteriaBuilder.function(
+                            "trgm_similarity", Double.class, root.get("authorName"), criteriaBuilder.literal(author))));
+                } else {
+                    query.orderBy(criteriaBuilder.desc(root.get("createdDate")), criteriaBuilder.desc(root.get("id")));
+                }
+            }
+            return null;
+        };
+    }
+
+    // user input must not act as a wildcard
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // specifications are applied to the count query too, which must not be ordered
+    private static boolean isDataQuery(CriteriaQuery<?> query) {
+        return query.getResultType() != Long.class && query.getResultType() != long.class;
+    }
 }
@@ -0,0 +1,22 @@
+package com.example.book_network.book;
+
+import java.time.LocalDateTime;
+
+// the columns a book card needs, selected in one query instead of loading the entity graph
+public record BookSummary(
+        Integer id,
+        String title,
+        String authorName,
+        String isbn,
+        String synopsis,
+        String owner,
+        String bookCover,
+        double rate,
+        boolean archived,
+        boolean shareable,
+        LocalDateTime createdDate) {
+
+    public PageCursor cursor() {
+        return new PageCursor(createdDate, id);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.book_network.book;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+// specification queries projected straight into BookSummary, like the fixed listing queries: loading Book
+// entities would bring their owner and the owner's eager roles with one extra select per owner
+public interface BookSummaryRepository {
+
+    // a Page with its total when count is set, otherwise a Slice read with one extra row instead of a count query
+    Slice<BookSummary> findSummaries(Specification<Book> specification, Pageable pageable, boolean count);
+}
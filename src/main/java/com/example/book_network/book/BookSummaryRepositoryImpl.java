@@ -0,0 +1,74 @@
+package com.example.book_network.book;
+
+import com.example.book_network.user.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+
+class BookSummaryRepositoryImpl implements BookSummaryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<BookSummary> findSummaries(Specification<Book> specification, Pageable pageable, boolean count) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookSummary> query = criteriaBuilder.createQuery(BookSummary.class);
+        Root<Book> root = query.from(Book.class);
+        Join<Book, User> owner = root.join("owner");
+        query.select(criteriaBuilder.construct(
+                BookSummary.class,
+                root.get("id"),
+                root.get("title"),
+                root.get("authorName"),
+                root.get("isbn"),
+                root.get("synopsis"),
+                criteriaBuilder.concat(criteriaBuilder.concat(owner.get("firstName"), " "), owner.get("lastName")),
+                root.get("bookCover"),
+                root.get("rate"),
+                root.get("archived"),
+                root.get("shareable"),
+                root.get("createdDate")));
+        Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if(predicate != null) {
+            query.where(predicate);
+        }
+        if(pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, criteriaBuilder));
+        }
+        int size = pageable.getPageSize();
+        List<BookSummary> books = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(count ? size : size + 1)
+                .getResultList();
+        if(count) {
+            return PageableExecutionUtils.getPage(books, pageable, () -> count(specification));
+        }
+        boolean hasNext = books.size() > size;
+        return new SliceImpl<>(hasNext ? books.subList(0, size) : books, pageable, hasNext);
+    }
+
+    private long count(Specification<Book> specification) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<Book> root = query.from(Book.class);
+        Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if(predicate != null) {
+            query.where(predicate);
+        }
+        query.select(criteriaBuilder.count(root));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
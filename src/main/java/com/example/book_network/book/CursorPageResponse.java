@@ -0,0 +1,36 @@
+package com.example.book_network.book;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPageResponse<T> {
+
+    private List<T> content;
+    private int size;
+    private String nextCursor;
+    private boolean last;
+
+    // rows are fetched with one extra element, its presence tells whether another page exists without counting
+    public static <S, T> CursorPageResponse<T> of(
+            List<S> rows,
+            int size,
+            Function<S, PageCursor> cursorOf,
+            Function<S, T> mapper
+    ) {
+        boolean last = rows.size() <= size;
+        List<S> page = last ? rows : rows.subList(0, size);
+        String nextCursor = last || page.isEmpty() ? null : cursorOf.apply(page.get(page.size() - 1)).encode();
+        return new CursorPageResponse<>(
+                page.stream().map(mapper).toList(),
+                size,
+                nextCursor,
+                last);
+    }
+}
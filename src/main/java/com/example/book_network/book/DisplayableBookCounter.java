@@ -0,0 +1,34 @@
+package com.example.book_network.book;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// counting every shareable book is the most expensive query of GET /books, so the global total
+// is shared between requests for a short time and only the user's own books are counted exactly
+@Component
+public class DisplayableBookCounter {
+
+    private final BookRepository bookRepository;
+    private final LoadingCache<Boolean, Long> totalCount;
+
+    public DisplayableBookCounter(
+            BookRepository bookRepository,
+            @Value("${application.book.count-cache-ttl}") Duration ttl
+    ) {
+        this.bookRepository = bookRepository;
+        this.totalCount = Caffeine.newBuilder()
+                .maximumSize(1)
+                .refreshAfterWrite(ttl.dividedBy(2))
+                .expireAfterWrite(ttl)
+                .build(key -> bookRepository.countDisplayableBooks());
+    }
+
+    public long approximateCountFor(Integer userId) {
+        long total = totalCount.get(Boolean.TRUE) - bookRepository.countDisplayableBooksOfOwner(userId);
+        return Math.max(0, total);
+    }
+}
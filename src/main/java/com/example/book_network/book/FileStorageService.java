@@ -1,5 +1,10 @@
 package com.example.book_network.book;
 
+import com.example.book_network.book.exception.OperationNotPremittedException;
+import com.example.book_network.book.exception.UploadLimitExceededException;
+import com.example.book_network.book.file.BlobStorage;
+import com.example.book_network.book.file.CoverFormat;
+import jakarta.annotation.PostConstruct;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -7,27 +12,50 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class FileStorageService {
 
+    public static final String COVERS_FOLDER = "covers";
+    public static final String TEMP_FOLDER = "tmp";
+    public static final String TEMP_FILE_PREFIX = "upload-";
+    public static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final BlobStorage blobStorage;
+
     @Value("${application.file.upload.photos-output-path}")
     private String fileUploadPath;
-    public Object saveFile(
-            @NonNull MultipartFile sourceFile,
-            @NonNull Integer userId)
-    {
+    @Value("${application.file.upload.max-concurrent-uploads}")
+    private int maxConcurrentUploads;
+    @Value("${application.file.upload.acquire-timeout-ms}")
+    private long acquireTimeoutMs;
+
+    // caps how many uploads are copied to disk at once
+    private Semaphore uploadPermits;
 
-        final String fileUploadSubPath = "users" + File.separator + userId;
+    @PostConstruct
+    void initUploadPermits() {
+        uploadPermits = new Semaphore(maxConcurrentUploads, true);
+    }
+
+    public Object saveFile(@NonNull MultipartFile sourceFile)
+    {
 
-        return uploadFile(sourceFile, fileUploadSubPath);
+        return uploadFile(sourceFile, COVERS_FOLDER);
     }
 
     private Object uploadFile(
@@ -35,38 +63,82 @@ public class FileStorageService {
             @NonNull String fileUploadSubPath)
     {
 
-    final String finalUploadPath = fileUploadPath + File.separator + fileUploadSubPath;
-    File targetFolder = new File(finalUploadPath);
-    if(!targetFolder.exists()){
-        boolean folderCreated = targetFolder.mkdirs();
-        if(!folderCreated){
-            log.warn("Unable to create folder");
-            return null;
-        }
+    final Path tempFolder = getTempFolder();
+    try {
+        Files.createDirectories(tempFolder);
+    } catch (IOException e) {
+        log.warn("Unable to create folder", e);
+        return null;
     }
-    final String fileExtension = getFileExtension(sourceFile.getOriginalFilename());
-    // ./upload/users/1/1212122.jpg
-    String targetFilePath = finalUploadPath + File.separator + System.currentTimeMillis() + "." + fileExtension;
-    Path targerPath = Paths.get(targetFilePath);
+    acquireUploadPermit();
+    Path tempPath = null;
     try{
-        Files.write(targerPath, sourceFile.getBytes());
-        log.info("File saved to : " + targetFilePath);
-        return targetFilePath;
-    } catch (IOException e) {
+        // stream the part to a local temp file while hashing it, the storage then moves or uploads it in one go
+        tempPath = Files.createTempFile(tempFolder, TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream input = new DigestInputStream(sourceFile.getInputStream(), digest)) {
+            Files.copy(input, tempPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        String hash = HexFormat.of().formatHex(digest.digest());
+        // the api serves covers from its own origin, anything that is not an image (html, svg ...) is refused
+        CoverFormat format = CoverFormat.detect(tempPath)
+                .orElseThrow(() -> new OperationNotPremittedException("The cover must be a JPEG, PNG or GIF image"));
+        // covers/9f/86/9f86d081884c7d65....jpg
+        String key = fileUploadSubPath
+                + "/" + hash.substring(0, 2)
+                + "/" + hash.substring(2, 4)
+                + "/" + hash + "." + format.getExtension();
+        if(blobStorage.exists(key) && touch(key)) {
+            // same content is already stored, reuse it and refresh its age so the collector keeps it
+            log.info("File already stored at : " + key);
+        } else {
+            blobStorage.put(key, tempPath, format.getMediaType().toString());
+            log.info("File saved to : " + key);
+        }
+        return key;
+    } catch (IOException | NoSuchAlgorithmException e) {
         log.error("File was not saved", e);
+    } finally {
+        deleteQuietly(tempPath);
+        uploadPermits.release();
     }
     return null;
     }
 
-    private String getFileExtension(String originalFilename) {
+    public Path getTempFolder() {
+        return Paths.get(fileUploadPath, TEMP_FOLDER);
+    }
 
-    if(originalFilename == null || originalFilename.isEmpty()) {
-        return "";
+    private void acquireUploadPermit() {
+        try {
+            if(!uploadPermits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new UploadLimitExceededException("Too many uploads in progress, please try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UploadLimitExceededException("Upload was interrupted while waiting for a free slot");
+        }
     }
-    int lastDotIndex = originalFilename.lastIndexOf(".");
-    if(lastDotIndex == -1) {
-        return "";
+
+    // false when the collector removed the blob since it was seen, it is then stored again
+    private boolean touch(String key) {
+        try {
+            blobStorage.touch(key);
+            return true;
+        } catch (IOException e) {
+            log.info("Stored file {} disappeared, uploading it again", key);
+            return false;
+        }
     }
-    return originalFilename.substring(lastDotIndex + 1).toLowerCase();
+
+    private void deleteQuietly(Path path) {
+        if(path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Unable to delete temporary file {}", path);
+        }
     }
 }
@@ -0,0 +1,34 @@
+package com.example.book_network.book;
+
+import com.example.book_network.book.exception.OperationNotPremittedException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// position in a (createdDate desc, id desc) listing, sent to clients as an opaque string
+public record PageCursor(LocalDateTime createdDate, Integer id) {
+
+    // sorts before every real row, so the first page needs no special query
+    private static final PageCursor START = new PageCursor(LocalDateTime.of(9999, 12, 31, 0, 0), Integer.MAX_VALUE);
+
+    public String encode() {
+        String value = createdDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) {
+        if(cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf('|');
+            return new PageCursor(
+                    LocalDateTime.parse(value.substring(0, separator)),
+                    Integer.valueOf(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new OperationNotPremittedException("Invalid page cursor");
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.book_network.book;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
 import java.util.List;
 
 @Getter
@@ -14,9 +18,28 @@ public class PageResponse<T> {
     private List<T> content;
     private int number;
     private int size;
-    private long totalElements;
-    private long totalPages;
+    // left out when the client asked to skip the count query
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalElements;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalPages;
     private boolean first;
     private boolean last;
 
+    public static <T> PageResponse<T> of(Slice<?> slice, List<T> content) {
+        Long totalElements = null;
+        Long totalPages = null;
+        if(slice instanceof Page<?> page) {
+            totalElements = page.getTotalElements();
+            totalPages = (long) page.getTotalPages();
+        }
+        return new PageResponse<>(
+                content,
+                slice.getNumber(),
+                slice.getSize(),
+                totalElements,
+                totalPages,
+                slice.isFirst(),
+                slice.isLast());
+    }
 }
@@ -0,0 +1,8 @@
+package com.example.book_network.book.exception;
+
+public class UploadLimitExceededException extends RuntimeException {
+    public UploadLimitExceededException(String s) {
+        super(s);
+
+    }
+}
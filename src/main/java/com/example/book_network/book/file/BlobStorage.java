@@ -0,0 +1,46 @@
+package com.example.book_network.book.file;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Where cover files live. Keys are relative, slash separated paths such as covers/9f/86/9f86d0...jpg
+ * so the same value stored in Book.bookCover works on every node and every backend.
+ */
+public interface BlobStorage {
+
+    // moves or uploads the local file under the given key, the source file may be consumed
+    void put(String key, Path source, String contentType) throws IOException;
+
+    Optional<BlobInfo> stat(String key);
+
+    default boolean exists(String key) {
+        return stat(key).isPresent();
+    }
+
+    InputStream openStream(String key) throws IOException;
+
+    // marks an existing blob as recently used so the garbage collector keeps it
+    void touch(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    Stream<BlobInfo> list(String prefix) throws IOException;
+
+    // a url the client can fetch the bytes from directly, empty when the bytes must be served by the api
+    Optional<URI> presignedUrl(String key, Duration expiresIn);
+
+    // every value of Book.bookCover that may point at this key
+    default List<String> referenceKeys(String key) {
+        return List.of(key);
+    }
+
+    record BlobInfo(String key, long size, long lastModified) {
+    }
+}
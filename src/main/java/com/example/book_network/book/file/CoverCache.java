@@ -0,0 +1,63 @@
+package com.example.book_network.book.file;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.common.util.StringUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@Slf4j
+@Component
+public class CoverCache {
+
+    private final BlobStorage blobStorage;
+    private final Cache<String, byte[]> cache;
+
+    public CoverCache(
+            BlobStorage blobStorage,
+            @Value("${application.file.cover.cache.max-size}") DataSize maxSize,
+            MeterRegistry meterRegistry
+    ) {
+        this.blobStorage = blobStorage;
+        // bounded by total bytes, caffeine evicts with W-TinyLFU so popular covers stay in memory
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, byte[] bytes) -> bytes.length)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "book.covers");
+    }
+
+    // covers are stored content-addressed, the bytes under a key never change so a hit needs no storage round trip.
+    // null when the file does not exist (yet), a missing variant is not cached and is looked up again next time
+    public byte[] read(String fileUrl) {
+        if(StringUtils.isBlank(fileUrl)){
+            return null;
+        }
+        return cache.get(fileUrl, this::load);
+    }
+
+    // a deleted key must not keep being served from memory
+    public void invalidate(String fileUrl) {
+        if(StringUtils.isBlank(fileUrl)){
+            return;
+        }
+        cache.invalidate(fileUrl);
+    }
+
+    private byte[] load(String fileUrl) {
+        try (InputStream input = blobStorage.openStream(fileUrl)) {
+            return input.readAllBytes();
+        } catch (IOException e) {
+            log.debug("No file found in the path {}", fileUrl);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.book_network.book.file;
+
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Optional;
+
+// the only files accepted as covers. The format is read from the file's own header, never from the client's
+// name or content type, and decides both the stored extension and the media type the cover is served with
+@Getter
+public enum CoverFormat {
+
+    JPEG("jpg", MediaType.IMAGE_JPEG),
+    PNG("png", MediaType.IMAGE_PNG),
+    GIF("gif", MediaType.IMAGE_GIF);
+
+    private final String extension;
+    private final MediaType mediaType;
+
+    CoverFormat(String extension, MediaType mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public static Optional<CoverFormat> detect(Path file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            if(input == null) {
+                return Optional.empty();
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if(!readers.hasNext()) {
+                return Optional.empty();
+            }
+            ImageReader reader = readers.next();
+            try {
+                return fromFormatName(reader.getFormatName());
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // keys written before uploads were checked may carry any extension, those are served as jpeg
+    public static CoverFormat fromPath(String key) {
+        int lastDotIndex = key.lastIndexOf('.');
+        String extension = lastDotIndex == -1 ? "" : key.substring(lastDotIndex + 1).toLowerCase(Locale.ROOT);
+        for(CoverFormat format : values()) {
+            if(format.extension.equals(extension)) {
+                return format;
+            }
+        }
+        return JPEG;
+    }
+
+    private static Optional<CoverFormat> fromFormatName(String formatName) {
+        return switch (formatName.toLowerCase(Locale.ROOT)) {
+            case "jpeg", "jpg" -> Optional.of(JPEG);
+            case "png" -> Optional.of(PNG);
+            case "gif" -> Optional.of(GIF);
+            default -> Optional.empty();
+        };
+    }
+}
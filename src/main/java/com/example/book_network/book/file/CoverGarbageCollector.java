@@ -0,0 +1,108 @@
+package com.example.book_network.book.file;
+
+import com.example.book_network.book.BookRepository;
+import com.example.book_network.book.FileStorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CoverGarbageCollector {
+
+    private final BookRepository bookRepository;
+    private final FileStorageService fileStorageService;
+    private final BlobStorage blobStorage;
+    private final CoverCache coverCache;
+
+    // files younger than this may belong to an upload whose book is not saved yet
+    @Value("${application.file.cover.gc.grace-period}")
+    private Duration gracePeriod;
+
+    @Scheduled(cron = "${application.file.cover.gc.cron}")
+    public void collectOrphanCovers() {
+        long cutoff = System.currentTimeMillis() - gracePeriod.toMillis();
+        int deleted = deleteStaleTempFiles(cutoff);
+
+        List<String> candidates;
+        try (Stream<BlobStorage.BlobInfo> blobs = blobStorage.list(FileStorageService.COVERS_FOLDER + "/")) {
+            candidates = blobs
+                    .filter(blob -> blob.lastModified() < cutoff)
+                    .map(BlobStorage.BlobInfo::key)
+                    .filter(this::isOriginal)
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Unable to scan covers", e);
+            return;
+        }
+        for(String key : candidates) {
+            if(bookRepository.existsByBookCoverIn(blobStorage.referenceKeys(key))) {
+                continue;
+            }
+            // a duplicate upload touches the blob before its book is saved: checked again after the reference
+            // lookup, a fresh modification time means an upload is about to reference it
+            if(isRecentlyTouched(key, cutoff)) {
+                continue;
+            }
+            for(CoverSize size : CoverSize.values()) {
+                String variantKey = size.variantPath(key);
+                coverCache.invalidate(variantKey);
+                deleted += delete(variantKey) ? 1 : 0;
+            }
+        }
+        log.info("Cover garbage collection removed {} files", deleted);
+    }
+
+    // left behind by a crashed upload or resize
+    private int deleteStaleTempFiles(long cutoff) {
+        Path tempFolder = fileStorageService.getTempFolder();
+        if(!Files.isDirectory(tempFolder)) {
+            return 0;
+        }
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(tempFolder)) {
+            for(Path file : files.toList()) {
+                if(Files.getLastModifiedTime(file).toMillis() < cutoff && Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to clean temp folder {}", tempFolder, e);
+        }
+        return deleted;
+    }
+
+    private boolean isRecentlyTouched(String key, long cutoff) {
+        return blobStorage.stat(key)
+                .map(info -> info.lastModified() >= cutoff)
+                .orElse(false);
+    }
+
+    // variants are named <hash>_<size>.jpg, originals are <hash>.<ext>
+    private boolean isOriginal(String key) {
+        return !key.substring(key.lastIndexOf('/') + 1).contains("_");
+    }
+
+    private boolean delete(String key) {
+        try {
+            if(!blobStorage.exists(key)) {
+                return false;
+            }
+            blobStorage.delete(key);
+            return true;
+        } catch (IOException e) {
+            log.warn("Unable to delete cover file {}", key, e);
+            return false;
+        }
+    }
+}
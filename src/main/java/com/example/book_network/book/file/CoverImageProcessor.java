@@ -0,0 +1,117 @@
+package com.example.book_network.book.file;
+
+import com.example.book_network.book.FileStorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CoverImageProcessor {
+
+    private final BlobStorage blobStorage;
+    private final FileStorageService fileStorageService;
+
+    @Value("${application.file.cover.variants.jpeg-quality}")
+    private float jpegQuality;
+
+    // runs on the bounded cover executor, the cover endpoint serves the original until the variants exist
+    @Async("coverImageExecutor")
+    public void generateVariants(String originalPath) {
+        if(hasAllVariants(originalPath)) {
+            return;
+        }
+        BufferedImage original;
+        try {
+            try (InputStream input = blobStorage.openStream(originalPath)) {
+                original = ImageIO.read(input);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to read cover {}", originalPath, e);
+            return;
+        }
+        if(original == null) {
+            log.warn("Unsupported cover image format {}", originalPath);
+            return;
+        }
+        for(CoverSize size : CoverSize.values()) {
+            // covers are content addressed, a duplicate upload already has its variants
+            if(size == CoverSize.ORIGINAL || blobStorage.exists(size.variantPath(originalPath))) {
+                continue;
+            }
+            try {
+                writeJpeg(resize(original, size.getMaxWidth()), size.variantPath(originalPath));
+            } catch (IOException e) {
+                log.warn("Unable to write {} variant of cover {}", size, originalPath, e);
+            }
+        }
+    }
+
+    private boolean hasAllVariants(String originalPath) {
+        for(CoverSize size : CoverSize.values()) {
+            if(!blobStorage.exists(size.variantPath(originalPath))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private BufferedImage resize(BufferedImage source, int maxWidth) {
+        // never upscale, small covers are only re-encoded
+        double scale = Math.min(1.0, (double) maxWidth / source.getWidth());
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // jpeg has no alpha channel, flatten transparent covers on white
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private void writeJpeg(BufferedImage image, String key) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+
+        Path tempFolder = fileStorageService.getTempFolder();
+        Files.createDirectories(tempFolder);
+        Path tempPath = Files.createTempFile(tempFolder, "variant-", ".tmp");
+        try {
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(tempPath.toFile())) {
+                writer.setOutput(output);
+                writer.write(null, new IIOImage(image, null, null), param);
+            }
+            blobStorage.put(key, tempPath, "image/jpeg");
+        } finally {
+            writer.dispose();
+            Files.deleteIfExists(tempPath);
+        }
+    }
+}
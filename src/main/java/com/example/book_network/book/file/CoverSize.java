@@ -0,0 +1,42 @@
+package com.example.book_network.book.file;
+
+import lombok.Getter;
+
+import java.util.Locale;
+
+@Getter
+public enum CoverSize {
+
+    THUMBNAIL(160),
+    CARD(400),
+    FULL(1200),
+    ORIGINAL(0);
+
+    private final int maxWidth;
+
+    CoverSize(int maxWidth) {
+        this.maxWidth = maxWidth;
+    }
+
+    // ./upload/users/1/1212122.png -> ./upload/users/1/1212122_card.jpg
+    public String variantPath(String originalPath) {
+        if(this == ORIGINAL) {
+            return originalPath;
+        }
+        int lastDotIndex = originalPath.lastIndexOf(".");
+        int lastSeparatorIndex = Math.max(originalPath.lastIndexOf("/"), originalPath.lastIndexOf("\\"));
+        String basePath = lastDotIndex > lastSeparatorIndex ? originalPath.substring(0, lastDotIndex) : originalPath;
+        return basePath + "_" + name().toLowerCase(Locale.ROOT) + ".jpg";
+    }
+
+    public static CoverSize from(String size) {
+        if(size == null || size.isBlank()) {
+            return ORIGINAL;
+        }
+        try {
+            return valueOf(size.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ORIGINAL;
+        }
+    }
+}
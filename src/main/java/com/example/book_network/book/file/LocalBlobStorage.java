@@ -0,0 +1,120 @@
+package com.example.book_network.book.file;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "application.file.storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalBlobStorage implements BlobStorage {
+
+    private final String fileUploadPath;
+    private final Path root;
+
+    public LocalBlobStorage(@Value("${application.file.upload.photos-output-path}") String fileUploadPath) {
+        this.fileUploadPath = fileUploadPath;
+        this.root = Paths.get(fileUploadPath).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // source is on another file system, copy next to the target first so readers never see a partial file
+            Path temp = Files.createTempFile(target.getParent(), "blob-", ".tmp");
+            try {
+                Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    @Override
+    public Optional<BlobInfo> stat(String key) {
+        try {
+            Path path = resolve(key);
+            if(!Files.isRegularFile(path)) {
+                return Optional.empty();
+            }
+            return Optional.of(new BlobInfo(key, Files.size(path), Files.getLastModifiedTime(path).toMillis()));
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("No file found in the path {}", key);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public InputStream openStream(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public void touch(String key) throws IOException {
+        Files.setLastModifiedTime(resolve(key), FileTime.fromMillis(System.currentTimeMillis()));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Stream<BlobInfo> list(String prefix) throws IOException {
+        Path folder = resolve(prefix);
+        if(!Files.isDirectory(folder)) {
+            return Stream.empty();
+        }
+        return Files.walk(folder)
+                .filter(Files::isRegularFile)
+                .map(this::toKey)
+                .flatMap(key -> stat(key).stream());
+    }
+
+    @Override
+    public Optional<URI> presignedUrl(String key, Duration expiresIn) {
+        return Optional.empty();
+    }
+
+    // covers uploaded before the storage abstraction were persisted with the upload folder as prefix
+    @Override
+    public List<String> referenceKeys(String key) {
+        return List.of(key, Paths.get(fileUploadPath).resolve(key).toString());
+    }
+
+    private Path resolve(String key) {
+        // ./upload/users/1/1212122.jpg, persisted before keys were relative to the upload folder
+        if(key.startsWith(fileUploadPath) || Paths.get(key).isAbsolute()) {
+            return Paths.get(key);
+        }
+        Path path = root.resolve(key).normalize();
+        if(!path.startsWith(root)) {
+            throw new IllegalArgumentException("Invalid blob key " + key);
+        }
+        return path;
+    }
+
+    private String toKey(Path path) {
+        return root.relativize(path.toAbsolutePath().normalize()).toString().replace('\\', '/');
+    }
+}
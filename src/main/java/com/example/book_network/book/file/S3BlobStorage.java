@@ -0,0 +1,181 @@
+package com.example.book_network.book.file;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.MetadataDirective;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "application.file.storage.type", havingValue = "s3")
+public class S3BlobStorage implements BlobStorage {
+
+    private final String bucket;
+    private final boolean presign;
+    private final S3Client client;
+    private final S3Presigner presigner;
+
+    public S3BlobStorage(
+            @Value("${application.file.storage.s3.endpoint}") String endpoint,
+            @Value("${application.file.storage.s3.region}") String region,
+            @Value("${application.file.storage.s3.bucket}") String bucket,
+            @Value("${application.file.storage.s3.access-key}") String accessKey,
+            @Value("${application.file.storage.s3.secret-key}") String secretKey,
+            @Value("${application.file.storage.s3.presign}") boolean presign
+    ) {
+        this.bucket = bucket;
+        this.presign = presign;
+        var credentials = StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+        // path style addressing keeps minio and other s3 compatible stores working without dns per bucket
+        var s3Configuration = S3Configuration.builder().pathStyleAccessEnabled(true).build();
+        this.client = S3Client.builder()
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(s3Configuration)
+                .build();
+        this.presigner = S3Presigner.builder()
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(s3Configuration)
+                .build();
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        try {
+            client.putObject(
+                    PutObjectRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .contentType(contentType)
+                            .contentLength(Files.size(source))
+                            .build(),
+                    RequestBody.fromFile(source)
+            );
+        } catch (SdkException e) {
+            throw new IOException("Unable to upload " + key, e);
+        }
+    }
+
+    @Override
+    public Optional<BlobInfo> stat(String key) {
+        try {
+            HeadObjectResponse head = client.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build());
+            return Optional.of(new BlobInfo(key, head.contentLength(), head.lastModified().toEpochMilli()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            if(e.statusCode() != 404) {
+                log.warn("Unable to read metadata of {}", key, e);
+            }
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public InputStream openStream(String key) throws IOException {
+        try {
+            return client.getObject(GetObjectRequest.builder().bucket(bucket).key(key).build());
+        } catch (SdkException e) {
+            throw new IOException("Unable to read " + key, e);
+        }
+    }
+
+    @Override
+    public void touch(String key) throws IOException {
+        // copying an object onto itself with replaced metadata is the only way to refresh its last modified date
+        try {
+            HeadObjectResponse head = client.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build());
+            client.copyObject(CopyObjectRequest.builder()
+                    .sourceBucket(bucket)
+                    .sourceKey(key)
+                    .destinationBucket(bucket)
+                    .destinationKey(key)
+                    .metadataDirective(MetadataDirective.REPLACE)
+                    .contentType(head.contentType())
+                    .build());
+        } catch (SdkException e) {
+            throw new IOException("Unable to touch " + key, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            client.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build());
+        } catch (SdkException e) {
+            throw new IOException("Unable to delete " + key, e);
+        }
+    }
+
+    @Override
+    public Stream<BlobInfo> list(String prefix) throws IOException {
+        try {
+            return client.listObjectsV2Paginator(ListObjectsV2Request.builder().bucket(bucket).prefix(prefix).build())
+                    .contents()
+                    .stream()
+                    .map(object -> new BlobInfo(object.key(), object.size(), object.lastModified().toEpochMilli()));
+        } catch (SdkException e) {
+            throw new IOException("Unable to list " + prefix, e);
+        }
+    }
+
+    @Override
+    public Optional<URI> presignedUrl(String key, Duration expiresIn) {
+        if(!presign) {
+            return Optional.empty();
+        }
+        var request = GetObjectPresignRequest.builder()
+                .signatureDuration(expiresIn)
+                // objects uploaded before covers were checked carry the client's content type, override it
+                .getObjectRequest(GetObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .responseContentType(CoverFormat.fromPath(key).getMediaType().toString())
+                        .build())
+                .build();
+        try {
+            return Optional.of(presigner.presignGetObject(request).url().toURI());
+        } catch (Exception e) {
+            log.warn("Unable to presign {}", key, e);
+            return Optional.empty();
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        presigner.close();
+        client.close();
+    }
+}
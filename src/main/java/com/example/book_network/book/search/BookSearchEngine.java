@@ -0,0 +1,7 @@
+package com.example.book_network.book.search;
+
+// text is the free text query, author a possibly misspelled author name, at least one of them is set
+public interface BookSearchEngine {
+
+    BookSearchResponse search(String text, String author, int page, int size, Integer userId);
+}
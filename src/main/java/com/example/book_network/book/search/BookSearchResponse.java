@@ -0,0 +1,25 @@
+package com.example.book_network.book.search;
+
+import com.example.book_network.book.BookResponse;
+import com.example.book_network.book.PageResponse;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookSearchResponse {
+
+    private PageResponse<BookResponse> results;
+    // keyed by dimension (author, rating), only the lucene engine computes them
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Map<String, List<FacetCount>> facets;
+
+    public record FacetCount(String value, long count) {
+    }
+}
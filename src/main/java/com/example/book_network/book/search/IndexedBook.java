@@ -0,0 +1,14 @@
+package com.example.book_network.book.search;
+
+// the columns stored in the search index, enough to answer a search without the database
+public record IndexedBook(
+        Integer id,
+        Integer ownerId,
+        String title,
+        String authorName,
+        String isbn,
+        String synopsis,
+        String owner,
+        String bookCover,
+        double rate) {
+}
@@ -0,0 +1,330 @@
+package com.example.book_network.book.search;
+
+import com.example.book_network.book.BookMapper;
+import com.example.book_network.book.BookResponse;
+import com.example.book_network.book.PageResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.Facets;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// embedded index of the displayable books: a document exists only while its book is shareable and not archived.
+// writes come from LuceneBookIndexer, searches read through a near-real-time SearcherManager and never touch the database
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "application.book.search.engine", havingValue = "lucene")
+public class LuceneBookIndex implements BookSearchEngine {
+
+    private static final String ID = "id";
+    private static final String OWNER_ID = "ownerId";
+    private static final String TITLE = "title";
+    private static final String AUTHOR = "authorName";
+    private static final String SYNOPSIS = "synopsis";
+    private static final String ISBN = "isbn";
+    private static final String OWNER = "owner";
+    private static final String COVER = "bookCover";
+    private static final String RATE = "rate";
+    private static final String AUTHOR_FACET = "author";
+    private static final String RATING_FACET = "rating";
+    private static final int FACET_SIZE = 10;
+
+    private final BookMapper bookMapper;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final FacetsConfig facetsConfig = new FacetsConfig();
+    private final FSDirectory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    // rebuilt only when the reader changes, building it walks every facet value
+    private volatile FacetState facetState;
+    // held by the periodic commit so a rebuild cannot start between its check and the commit
+    private final Object commitLock = new Object();
+    private boolean rebuilding;
+
+    public LuceneBookIndex(BookMapper bookMapper, @Value("${application.book.search.lucene.path}") String indexPath) throws IOException {
+        this.bookMapper = bookMapper;
+        this.directory = FSDirectory.open(Path.of(indexPath));
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        this.writer = new IndexWriter(directory, config);
+        this.searcherManager = new SearcherManager(writer, null);
+    }
+
+    public boolean isEmpty() {
+        return writer.getDocStats().numDocs == 0;
+    }
+
+    public void upsert(IndexedBook book) {
+        try {
+            writer.updateDocument(new Term(ID, String.valueOf(book.id())), toDocument(book));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void delete(Integer bookId) {
+        try {
+            writer.deleteDocuments(new Term(ID, String.valueOf(bookId)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // empties the index for a rebuild. Until finishRebuild the periodic commit is skipped, otherwise a crash
+    // would leave a half rebuilt index on disk instead of the last complete one
+    public void beginRebuild() {
+        synchronized(commitLock) {
+            rebuilding = true;
+        }
+        try {
+            writer.deleteAll();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void finishRebuild() {
+        synchronized(commitLock) {
+            try {
+                writer.commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rebuilding = false;
+        }
+    }
+
+    // makes the latest writes visible to searches without a commit
+    public void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // durability only, searches already see uncommitted writes through the nrt reader
+    @Scheduled(fixedDelayString = "${application.book.search.lucene.commit-interval-ms}")
+    public void commit() {
+        synchronized(commitLock) {
+            if(rebuilding || !writer.hasUncommittedChanges()) {
+                return;
+            }
+            try {
+                writer.commit();
+            } catch (IOException e) {
+                log.error("Could not commit the book search index", e);
+            }
+        }
+    }
+
+    @Override
+    public BookSearchResponse search(String text, String author, int page, int size, Integer userId) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        if(text != null) {
+            var parser = new SimpleQueryParser(analyzer, Map.of(TITLE, 3f, AUTHOR, 2f, SYNOPSIS, 1f));
+            parser.setDefaultOperator(BooleanClause.Occur.MUST);
+            query.add(parser.parse(text), BooleanClause.Occur.MUST);
+        }
+        if(author != null) {
+            for(String term : analyze(author)) {
+                query.add(new FuzzyQuery(new Term(AUTHOR, term)), BooleanClause.Occur.MUST);
+            }
+        }
+        query.add(new TermQuery(new Term(OWNER_ID, String.valueOf(userId))), BooleanClause.Occur.MUST_NOT);
+
+        IndexSearcher searcher;
+        try {
+            searcher = searcherManager.acquire();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            FacetsCollector facetsCollector = new FacetsCollector();
+            TopDocs topDocs = FacetsCollector.search(searcher, query.build(), Math.max(1, (page + 1) * size), facetsCollector);
+            StoredFields storedFields = searcher.storedFields();
+            List<BookResponse> content = new ArrayList<>();
+            for(int i = page * size; i < topDocs.scoreDocs.length; i++) {
+                ScoreDoc scoreDoc = topDocs.scoreDocs[i];
+                content.add(bookMapper.toBookResponse(fromDocument(storedFields.document(scoreDoc.doc))));
+            }
+            var results = new PageImpl<>(content, PageRequest.of(page, Math.max(1, size)), topDocs.totalHits.value);
+            return BookSearchResponse.builder()
+                    .results(PageResponse.of(results, content))
+                    .facets(facets(searcher.getIndexReader(), facetsCollector))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            release(searcher);
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        searcherManager.close();
+        synchronized(commitLock) {
+            if(rebuilding) {
+                // also closes the writer: the unfinished rebuild is dropped, the last complete index stays on disk
+                writer.rollback();
+            } else {
+                // commits pending changes on close
+                writer.close();
+            }
+        }
+        directory.close();
+    }
+
+    private Document toDocument(IndexedBook book) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(book.id()), Field.Store.YES));
+        document.add(new StringField(OWNER_ID, String.valueOf(book.ownerId()), Field.Store.NO));
+        document.add(new TextField(TITLE, nullToEmpty(book.title()), Field.Store.YES));
+        document.add(new TextField(AUTHOR, nullToEmpty(book.authorName()), Field.Store.YES));
+        document.add(new TextField(SYNOPSIS, nullToEmpty(book.synopsis()), Field.Store.YES));
+        document.add(new StoredField(ISBN, nullToEmpty(book.isbn())));
+        document.add(new StoredField(OWNER, nullToEmpty(book.owner())));
+        document.add(new StoredField(COVER, nullToEmpty(book.bookCover())));
+        document.add(new StoredField(RATE, book.rate()));
+        if(book.authorName() != null && !book.authorName().isBlank()) {
+            document.add(new SortedSetDocValuesFacetField(AUTHOR_FACET, book.authorName().trim()));
+        }
+        document.add(new SortedSetDocValuesFacetField(RATING_FACET, ratingBand(book.rate())));
+        try {
+            return facetsConfig.build(document);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private IndexedBook fromDocument(Document document) {
+        return new IndexedBook(
+                Integer.valueOf(document.get(ID)),
+                null,
+                document.get(TITLE),
+                document.get(AUTHOR),
+                document.get(ISBN),
+                document.get(SYNOPSIS),
+                document.get(OWNER),
+                emptyToNull(document.get(COVER)),
+                document.getField(RATE).numericValue().doubleValue());
+    }
+
+    private Map<String, List<BookSearchResponse.FacetCount>> facets(IndexReader reader, FacetsCollector collector) throws IOException {
+        SortedSetDocValuesReaderState state = facetStateFor(reader);
+        Map<String, List<BookSearchResponse.FacetCount>> facets = new LinkedHashMap<>();
+        if(state == null) {
+            return facets;
+        }
+        Facets counts = new SortedSetDocValuesFacetCounts(state, collector);
+        for(String dimension : List.of(AUTHOR_FACET, RATING_FACET)) {
+            FacetResult result = counts.getTopChildren(FACET_SIZE, dimension);
+            if(result != null) {
+                facets.put(dimension, Arrays.stream(result.labelValues)
+                        .map(label -> new BookSearchResponse.FacetCount(label.label, label.value.longValue()))
+                        .toList());
+            }
+        }
+        return facets;
+    }
+
+    private SortedSetDocValuesReaderState facetStateFor(IndexReader reader) throws IOException {
+        FacetState current = facetState;
+        if(current != null && current.reader() == reader) {
+            return current.state();
+        }
+        SortedSetDocValuesReaderState state;
+        try {
+            state = new DefaultSortedSetDocValuesReaderState(reader, facetsConfig);
+        } catch (IllegalArgumentException e) {
+            // nothing indexed with facets yet
+            return null;
+        }
+        facetState = new FacetState(reader, state);
+        return state;
+    }
+
+    private List<String> analyze(String value) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(AUTHOR, value)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while(stream.incrementToken()) {
+                terms.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private void release(IndexSearcher searcher) {
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException e) {
+            log.warn("Could not release the index searcher", e);
+        }
+    }
+
+    // bands of one star: 0-1 ... 4-5
+    private static String ratingBand(double rate) {
+        int band = (int) Math.min(4, Math.max(0, Math.floor(rate)));
+        return band + "-" + (band + 1);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private record FacetState(IndexReader reader, SortedSetDocValuesReaderState state) {
+    }
+}
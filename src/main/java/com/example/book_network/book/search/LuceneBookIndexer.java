@@ -0,0 +1,81 @@
+package com.example.book_network.book.search;
+
+import com.example.book_network.book.BookChangedEvent;
+import com.example.book_network.book.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+// every write runs on the single threaded searchIndexExecutor, so updates of the same book are applied in commit order
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "application.book.search.engine", havingValue = "lucene")
+public class LuceneBookIndexer implements ApplicationRunner {
+
+    public static final String REBUILD_OPTION = "rebuild-search-index";
+
+    private final LuceneBookIndex index;
+    private final BookRepository bookRepository;
+    private final TaskExecutor searchIndexExecutor;
+    private final int rebuildBatchSize;
+
+    public LuceneBookIndexer(
+            LuceneBookIndex index,
+            BookRepository bookRepository,
+            @Qualifier("searchIndexExecutor") TaskExecutor searchIndexExecutor,
+            @Value("${application.book.search.lucene.rebuild-batch-size}") int rebuildBatchSize
+    ) {
+        this.index = index;
+        this.bookRepository = bookRepository;
+        this.searchIndexExecutor = searchIndexExecutor;
+        this.rebuildBatchSize = rebuildBatchSize;
+    }
+
+    // reloads the book after commit instead of trusting the event payload, a late event never indexes stale data
+    @Async("searchIndexExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        bookRepository.findIndexableBook(event.bookId())
+                .ifPresentOrElse(index::upsert, () -> index.delete(event.bookId()));
+        index.refresh();
+    }
+
+    // start with --rebuild-search-index to rebuild on demand, an empty index is always rebuilt
+    @Override
+    public void run(ApplicationArguments args) {
+        if(args.containsOption(REBUILD_OPTION) || index.isEmpty()) {
+            searchIndexExecutor.execute(this::rebuild);
+        }
+    }
+
+    // streams the table by id in fixed size batches, searches keep seeing the previous index until the refresh.
+    // nothing is committed before the last batch: when the rebuild fails, the disk keeps the previous index
+    public void rebuild() {
+        log.info("Rebuilding the book search index");
+        index.beginRebuild();
+        int indexed = 0;
+        int afterId = 0;
+        List<IndexedBook> batch;
+        do {
+            batch = bookRepository.findIndexableBooksAfter(afterId, PageRequest.of(0, rebuildBatchSize));
+            batch.forEach(index::upsert);
+            indexed += batch.size();
+            if(!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1).id();
+            }
+        } while (batch.size() == rebuildBatchSize);
+        index.finishRebuild();
+        index.refresh();
+        log.info("Indexed {} books", indexed);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.book_network.book.search;
+
+import com.example.book_network.book.Book;
+import com.example.book_network.book.BookMapper;
+import com.example.book_network.book.BookRepository;
+import com.example.book_network.book.BookResponse;
+import com.example.book_network.book.BookSpecification;
+import com.example.book_network.book.BookSummary;
+import com.example.book_network.book.PageResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "application.book.search.engine", havingValue = "postgres", matchIfMissing = true)
+public class PostgresBookSearchEngine implements BookSearchEngine {
+
+    private final BookRepository bookRepository;
+    private final BookMapper bookMapper;
+
+    @Override
+    public BookSearchResponse search(String text, String author, int page, int size, Integer userId) {
+        Specification<Book> specification = Specification.where(BookSpecification.isDisplayable())
+                .and(BookSpecification.notOwnedBy(userId))
+                .and(BookSpecification.orderByRelevance(text, author));
+        if(text != null) {
+            specification = specification.and(BookSpecification.matchesText(text));
+        }
+        if(author != null) {
+            specification = specification.and(BookSpecification.authorSimilarTo(author));
+        }
+        // projected like the listings, loading Book entities would load each owner and its eager roles
+        Slice<BookSummary> books = bookRepository.findSummaries(specification, PageRequest.of(page, size), true);
+        List<BookResponse> bookResponses = books.stream()
+                .map(bookMapper::toBookResponse)
+                .toList();
+        return BookSearchResponse.builder()
+                .results(PageResponse.of(books, bookResponses))
+                .build();
+    }
+}
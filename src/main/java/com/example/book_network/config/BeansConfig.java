@@ -1,28 +1,43 @@
 package com.example.book_network.config;
 
+import com.example.book_network.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.data.domain.AuditorAware;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.Map;
+
+@Slf4j
 @Configuration
 @RequiredArgsConstructor
 public class BeansConfig {
 
     private final UserDetailsService userDetailsService;
+    private final UserDetailsPasswordService userDetailsPasswordService;
 
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        // re-hashes outdated passwords (legacy format or lower cost) after a successful login
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService);
         return authProvider;
     }
 
@@ -37,7 +52,47 @@ public class BeansConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${application.security.password.bcrypt-strength}") int bcryptStrength,
+            @Value("${application.security.password.pool-size}") int poolSize,
+            @Value("${application.security.password.queue-capacity}") int queueCapacity
+    ) {
+        String encodingId = "bcrypt";
+        DelegatingPasswordEncoder delegatingEncoder = new DelegatingPasswordEncoder(
+                encodingId,
+                Map.of(encodingId, new BCryptPasswordEncoder(bcryptStrength))
+        );
+        // hashes stored before the {id} prefix was introduced are plain bcrypt
+        delegatingEncoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return new BoundedPasswordEncoder(delegatingEncoder, poolSize, queueCapacity, meterRegistry);
+    }
+
+    @Bean
+    public TaskExecutor coverImageExecutor(
+            @Value("${application.file.cover.variants.pool-size}") int poolSize,
+            @Value("${application.file.cover.variants.queue-capacity}") int queueCapacity
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("cover-image-");
+        // a full queue must never fail the upload, the original cover is still served
+        executor.setRejectedExecutionHandler((task, pool) -> log.warn("Cover image queue is full, skipping variant generation"));
+        executor.initialize();
+        return executor;
+    }
+
+    // a single thread applies index updates in the order the changes were committed
+    @Bean
+    @ConditionalOnProperty(name = "application.book.search.engine", havingValue = "lucene")
+    public TaskExecutor searchIndexExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("search-index-");
+        executor.initialize();
+        return executor;
     }
 }
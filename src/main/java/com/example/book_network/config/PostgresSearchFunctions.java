@@ -0,0 +1,84 @@
+package com.example.book_network.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.metamodel.model.domain.ReturnableType;
+import org.hibernate.query.sqm.function.AbstractSqmSelfRenderingFunctionDescriptor;
+import org.hibernate.query.sqm.function.SqmFunctionRegistry;
+import org.hibernate.query.sqm.produce.function.StandardArgumentsValidators;
+import org.hibernate.query.sqm.produce.function.StandardFunctionArgumentTypeResolvers;
+import org.hibernate.query.sqm.produce.function.StandardFunctionReturnTypeResolvers;
+import org.hibernate.sql.ast.SqlAstTranslator;
+import org.hibernate.sql.ast.spi.SqlAppender;
+import org.hibernate.sql.ast.tree.SqlAstNode;
+import org.hibernate.sql.ast.tree.expression.ColumnReference;
+import org.hibernate.sql.ast.tree.expression.Expression;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+import java.util.List;
+
+// exposes the postgres search operators to JPQL and criteria queries. They are rendered as operators
+// (@@, %) and not as their function equivalents, otherwise the planner cannot use the GIN indexes
+public class PostgresSearchFunctions implements FunctionContributor {
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        SqmFunctionRegistry registry = functionContributions.getFunctionRegistry();
+        var basicTypes = functionContributions.getTypeConfiguration().getBasicTypeRegistry();
+        BasicType<Boolean> booleanType = basicTypes.resolve(StandardBasicTypes.BOOLEAN);
+        BasicType<Double> doubleType = basicTypes.resolve(StandardBasicTypes.DOUBLE);
+
+        registry.register("fts_match", new SearchVectorFunction(
+                "fts_match", "(", " @@ websearch_to_tsquery('english', ", "))", booleanType));
+        registry.register("fts_rank", new SearchVectorFunction(
+                "fts_rank", "ts_rank(", ", websearch_to_tsquery('english', ", "))", doubleType));
+        registry.registerPattern("trgm_match", "(?1 % ?2)", booleanType);
+        registry.registerPattern("trgm_similarity", "similarity(?1, ?2)", doubleType);
+    }
+
+    // book.search_vector is not mapped, loading the tsvector with every book would only cost bandwidth.
+    // The first argument is any column of the book row (its id), only its table alias is used to reach the vector
+    private static class SearchVectorFunction extends AbstractSqmSelfRenderingFunctionDescriptor {
+
+        private final String prefix;
+        private final String separator;
+        private final String suffix;
+
+        SearchVectorFunction(String name, String prefix, String separator, String suffix, BasicType<?> returnType) {
+            super(
+                    name,
+                    StandardArgumentsValidators.exactly(2),
+                    StandardFunctionReturnTypeResolvers.invariant(returnType),
+                    StandardFunctionArgumentTypeResolvers.NULL
+            );
+            this.prefix = prefix;
+            this.separator = separator;
+            this.suffix = suffix;
+        }
+
+        @Override
+        public void render(
+                SqlAppender sqlAppender,
+                List<? extends SqlAstNode> sqlAstArguments,
+                ReturnableType<?> returnType,
+                SqlAstTranslator<?> walker
+        ) {
+            ColumnReference column = sqlAstArguments.get(0) instanceof Expression expression
+                    ? expression.getColumnReference()
+                    : null;
+            if(column == null) {
+                throw new IllegalArgumentException(getName() + " expects a column of the book row as first argument");
+            }
+            sqlAppender.appendSql(prefix);
+            if(column.getQualifier() != null) {
+                sqlAppender.appendSql(column.getQualifier());
+                sqlAppender.appendSql('.');
+            }
+            sqlAppender.appendSql("search_vector");
+            sqlAppender.appendSql(separator);
+            sqlAstArguments.get(1).accept(walker);
+            sqlAppender.appendSql(suffix);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.book_network.email;
+
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmailOutboxDispatcher {
+
+    private final OutgoingEmailRepository outgoingEmailRepository;
+    private final EmailService emailService;
+    @Value("${application.mailing.outbox.batch-size}")
+    private int batchSize;
+    @Value("${application.mailing.outbox.max-attempts}")
+    private int maxAttempts;
+    @Value("${application.mailing.outbox.retry-backoff}")
+    private Duration retryBackoff;
+
+    @Scheduled(fixedDelayString = "${application.mailing.outbox.poll-interval-ms}")
+    @Transactional
+    public void dispatch() {
+        List<OutgoingEmail> batch = outgoingEmailRepository.lockDueBatch(LocalDateTime.now(), batchSize);
+        if(batch.isEmpty()) {
+            return;
+        }
+        Map<MimeMessage, OutgoingEmail> rendered = new IdentityHashMap<>();
+        for(OutgoingEmail email : batch) {
+            try {
+                rendered.put(emailService.render(email), email);
+            } catch (Exception e) {
+                // a broken template only fails its own email, not the batch
+                markFailed(email, e);
+            }
+        }
+        if(rendered.isEmpty()) {
+            return;
+        }
+        Map<Object, Exception> failures = Map.of();
+        try {
+            emailService.send(rendered.keySet().toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+            if(failures.isEmpty()) {
+                failures = allFailed(rendered, e);
+            }
+        } catch (MailException e) {
+            failures = allFailed(rendered, e);
+        }
+        for(var entry : rendered.entrySet()) {
+            Exception failure = failures.get(entry.getKey());
+            if(failure != null) {
+                markFailed(entry.getValue(), failure);
+            } else {
+                entry.getValue().setStatus(EmailStatus.SENT);
+                entry.getValue().setSentAt(LocalDateTime.now());
+            }
+        }
+    }
+
+    private void markFailed(OutgoingEmail email, Exception e) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        email.setLastError(abbreviate(e.getMessage()));
+        if(attempts >= maxAttempts) {
+            email.setStatus(EmailStatus.DEAD);
+            log.error("Giving up on email {} to {} after {} attempts", email.getId(), email.getRecipient(), attempts, e);
+            return;
+        }
+        // exponential backoff: 1x, 2x, 4x ... the configured delay
+        email.setNextAttemptAt(LocalDateTime.now().plus(retryBackoff.multipliedBy(1L << (attempts - 1))));
+        log.warn("Sending email {} failed (attempt {}), retrying later: {}", email.getId(), attempts, e.getMessage());
+    }
+
+    private static Map<Object, Exception> allFailed(Map<MimeMessage, OutgoingEmail> rendered, Exception e) {
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        rendered.keySet().forEach(message -> failures.put(message, e));
+        return failures;
+    }
+
+    private static String abbreviate(String message) {
+        if(message == null || message.length() <= 1000) {
+            return message;
+        }
+        return message.substring(0, 1000);
+    }
+}
@@ -5,12 +5,12 @@ import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -19,11 +19,13 @@ import java.util.Map;
 public class EmailService {
 
     private final JavaMailSender mailSender;
-    private final SpringTemplateEngine templateEngine;
+    private final EmailTemplateRenderer templateRenderer;
+    private final OutgoingEmailRepository outgoingEmailRepository;
 
 
-
-    @Async
+    // only writes the outbox row, it commits or rolls back together with the caller's changes.
+    // EmailOutboxDispatcher renders and sends it in the background
+    @Transactional(propagation = Propagation.MANDATORY)
     public void sendEmail(
             String to,
             String username,
@@ -31,33 +33,49 @@ public class EmailService {
             String confirmationUrl,
             String activationCode,
             String subject
-    ) throws MessagingException {
+    ) {
             String templateName;
             if(emailTemplate == null){
                 templateName = "confirm-email";
             }else{
-                templateName = emailTemplate.name();
+                templateName = emailTemplate.getName();
             }
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("username", username );
+        properties.put("confirmationUrl", confirmationUrl );
+        properties.put("activationCode", activationCode );
+        properties.put("subject", subject );
+        var email = OutgoingEmail.builder()
+                .recipient(to)
+                .subject(subject)
+                .templateName(templateName)
+                .variables(properties)
+                .status(EmailStatus.PENDING)
+                .createdAt(LocalDateTime.now())
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+        outgoingEmailRepository.save(email);
+    }
+
+    public MimeMessage render(OutgoingEmail email) throws MessagingException {
         MimeMessage mimeMessage = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(
                 mimeMessage,
                 MimeMessageHelper.MULTIPART_MODE_MIXED,
                 String.valueOf(StandardCharsets.UTF_8)
         );
-        Map<String, Object> properties = new HashMap<>();
-        properties.put("username", username );
-        properties.put("confirmationUrl", confirmationUrl );
-        properties.put("activationCode", activationCode );
-        properties.put("subject", subject );
-        Context context = new Context();
-        context.setVariables(properties);
-        helper.setTo(to);
+        helper.setTo(email.getRecipient());
         helper.setFrom("mostafa.a.mohamed381@gmail.com");
-        helper.setSubject(subject);
+        helper.setSubject(email.getSubject());
 
-        String template = templateEngine.process(templateName, context);
+        String template = templateRenderer.render(email.getTemplateName(), email.getVariables());
         helper.setText(template, true);
-        mailSender.send(mimeMessage);
+        return mimeMessage;
+    }
+
+    // JavaMailSenderImpl sends the whole batch over a single smtp connection
+    public void send(MimeMessage... mimeMessages) {
+        mailSender.send(mimeMessages);
     }
 
 
@@ -0,0 +1,8 @@
+package com.example.book_network.email;
+
+public enum EmailStatus {
+    PENDING,
+    SENT,
+    // gave up after the maximum number of attempts, kept for inspection
+    DEAD
+}
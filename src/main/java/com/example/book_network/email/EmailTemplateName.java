@@ -2,15 +2,21 @@ package com.example.book_network.email;
 
 import lombok.Getter;
 
+import java.util.List;
+
 @Getter
 
 public enum EmailTemplateName {
 
-    ACTIVATE_ACCOUNT("activate_account");
+    // variables may only be printed (th:text, th:href ...), never used in conditions:
+    // the template is compiled once into static segments with a slot per variable
+    ACTIVATE_ACCOUNT("activate_account", List.of("username", "confirmationUrl", "activationCode", "subject"));
     private final String name;
+    private final List<String> variables;
 
 
-    EmailTemplateName(String name) {
+    EmailTemplateName(String name, List<String> variables) {
         this.name = name;
+        this.variables = variables;
     }
 }
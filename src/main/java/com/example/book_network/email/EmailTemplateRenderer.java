@@ -0,0 +1,97 @@
+package com.example.book_network.email;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.HtmlUtils;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// renders emails without going through the web template engine: known templates are run through thymeleaf once
+// at startup with placeholder values, after that a render is only string concatenation plus html escaping
+@Component
+public class EmailTemplateRenderer {
+
+    private static final String SLOT_PREFIX = "@@email-var-";
+    private static final Pattern SLOT = Pattern.compile("@@email-var-(\\d+)@@");
+
+    private final TemplateEngine templateEngine;
+    // keyed by the template name and by the enum constant name, outbox rows written before the rename used the latter
+    private final Map<String, CompiledTemplate> compiledTemplates = new HashMap<>();
+
+    public EmailTemplateRenderer() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".HTML");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resolver.setCacheable(true);
+        this.templateEngine = new TemplateEngine();
+        this.templateEngine.setTemplateResolver(resolver);
+    }
+
+    // fails on startup instead of on the first email when a template is missing or broken
+    @PostConstruct
+    void compileTemplates() {
+        for(EmailTemplateName template : EmailTemplateName.values()) {
+            CompiledTemplate compiled = compile(template);
+            compiledTemplates.put(template.getName(), compiled);
+            compiledTemplates.put(template.name(), compiled);
+        }
+    }
+
+    public String render(String templateName, Map<String, Object> variables) {
+        CompiledTemplate compiled = compiledTemplates.get(templateName);
+        if(compiled != null) {
+            return compiled.render(variables);
+        }
+        // unknown templates still work, through the cached thymeleaf path
+        Context context = new Context();
+        context.setVariables(variables);
+        return templateEngine.process(templateName, context);
+    }
+
+    private CompiledTemplate compile(EmailTemplateName template) {
+        List<String> variables = template.getVariables();
+        Context context = new Context();
+        for(int i = 0; i < variables.size(); i++) {
+            context.setVariable(variables.get(i), SLOT_PREFIX + i + "@@");
+        }
+        String output = templateEngine.process(template.getName(), context);
+        List<String> segments = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        Matcher matcher = SLOT.matcher(output);
+        int start = 0;
+        while(matcher.find()) {
+            segments.add(output.substring(start, matcher.start()));
+            slots.add(variables.get(Integer.parseInt(matcher.group(1))));
+            start = matcher.end();
+        }
+        segments.add(output.substring(start));
+        return new CompiledTemplate(segments.toArray(String[]::new), slots.toArray(String[]::new), output.length());
+    }
+
+    private record CompiledTemplate(String[] segments, String[] slots, int staticLength) {
+
+        String render(Map<String, Object> variables) {
+            StringBuilder builder = new StringBuilder(staticLength + slots.length * 32);
+            for(int i = 0; i < slots.length; i++) {
+                builder.append(segments[i]);
+                Object value = variables.get(slots[i]);
+                if(value != null) {
+                    builder.append(HtmlUtils.htmlEscape(value.toString()));
+                }
+            }
+            return builder.append(segments[slots.length]).toString();
+        }
+    }
+}
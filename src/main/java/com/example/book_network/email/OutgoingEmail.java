@@ -0,0 +1,39 @@
+package com.example.book_network.email;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "email_outbox")
+public class OutgoingEmail {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    private Integer id;
+    @Column(nullable = false)
+    private String recipient;
+    private String subject;
+    @Column(nullable = false)
+    private String templateName;
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<String, Object> variables;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private EmailStatus status;
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    @Column(length = 1000)
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+}
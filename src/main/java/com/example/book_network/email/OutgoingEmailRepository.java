@@ -0,0 +1,22 @@
+package com.example.book_network.email;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutgoingEmailRepository extends JpaRepository<OutgoingEmail, Integer> {
+
+    // skip locked lets several instances drain the outbox without sending an email twice
+    @Query(value = """
+            SELECT *
+            FROM email_outbox
+            WHERE status = 'PENDING'
+            AND next_attempt_at <= :now
+            ORDER BY id
+            LIMIT :batchSize
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OutgoingEmail> lockDueBatch(LocalDateTime now, int batchSize);
+}
@@ -21,7 +21,7 @@ public class Feedback extends BaseEntity {
     private Double note;
     private String comment;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id")
     private Book book;
 
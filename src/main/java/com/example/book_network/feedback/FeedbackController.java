@@ -1,6 +1,7 @@
 package com.example.book_network.feedback;
 
 
+import com.example.book_network.book.CursorPageResponse;
 import com.example.book_network.book.PageResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -32,8 +33,20 @@ public class FeedbackController {
              @PathVariable("book-id") Integer bookId,
              @RequestParam(name="page", defaultValue = "0", required = false) int page,
              @RequestParam(name="size", defaultValue = "10", required = false) int size,
+             @RequestParam(name="count", defaultValue = "true", required = false) boolean count,
              Authentication connectedUser
     ){
-        return ResponseEntity.ok(service.findAllFeedbacksByBook(bookId, page, size, connectedUser));
+        return ResponseEntity.ok(service.findAllFeedbacksByBook(bookId, page, size, count, connectedUser));
+    }
+
+    // keyset mode, selected by the cursor parameter, an empty cursor asks for the first page
+    @GetMapping(value = "/book/{book-id}", params = "cursor")
+    public ResponseEntity<CursorPageResponse<FeedbackResponse>> findAllFeedbackByBookByCursor(
+             @PathVariable("book-id") Integer bookId,
+             @RequestParam(name="cursor") String cursor,
+             @RequestParam(name="size", defaultValue = "10", required = false) int size,
+             Authentication connectedUser
+    ){
+        return ResponseEntity.ok(service.findAllFeedbacksByBook(bookId, cursor, size, connectedUser));
     }
 }
@@ -3,9 +3,13 @@ package com.example.book_network.feedback;
 import com.example.book_network.book.Book;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 public interface FeedbackRepository extends JpaRepository<Feedback, Integer> {
 
 
@@ -18,4 +22,26 @@ public interface FeedbackRepository extends JpaRepository<Feedback, Integer> {
             """
                 )
     Page<Feedback> findAllByBookId(Integer bookId, Pageable pageable);
+
+    // fetches one extra row to know if there is a next page and skips the count query
+    @Query(
+            """
+               select feedback
+               from Feedback feedback
+               where feedback.book.id = :bookId
+            """
+                )
+    Slice<Feedback> findSliceByBookId(Integer bookId, Pageable pageable);
+
+    @Query(
+            """
+               select feedback
+               from Feedback feedback
+               where feedback.book.id = :bookId
+               and feedback.createdDate <= :createdDate
+               and (feedback.createdDate < :createdDate or (feedback.createdDate = :createdDate and feedback.id < :id))
+               order by feedback.createdDate desc, feedback.id desc
+            """
+                )
+    List<Feedback> findAllByBookIdAfter(Integer bookId, LocalDateTime createdDate, Integer id, Pageable pageable);
 }
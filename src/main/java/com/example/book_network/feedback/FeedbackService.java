@@ -2,19 +2,24 @@ package com.example.book_network.feedback;
 
 
 import com.example.book_network.book.Book;
+import com.example.book_network.book.BookChangedEvent;
 import com.example.book_network.book.BookRepository;
+import com.example.book_network.book.CursorPageResponse;
+import com.example.book_network.book.PageCursor;
 import com.example.book_network.book.PageResponse;
 import com.example.book_network.book.exception.OperationNotPremittedException;
 import com.example.book_network.user.User;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Objects;
@@ -26,7 +31,9 @@ public class FeedbackService {
 public final BookRepository bookRepository;
 public final FeedbackMapper feedbackMapper;
 public final FeedbackRepository feedbackRepository;
+public final ApplicationEventPublisher eventPublisher;
 
+    @Transactional
     public Integer save(@Valid FeedbackRequest request, Authentication connectedUser) {
 
         Book book= bookRepository.findById(request.bookId())
@@ -42,28 +49,40 @@ public final FeedbackRepository feedbackRepository;
             throw new OperationNotPremittedException("You cannot give a feedback to your own book");
         }
         Feedback feedback = feedbackMapper.toFeedbackRequest(request);
-        return feedbackRepository.save(feedback).getId();
+        Integer feedbackId = feedbackRepository.save(feedback).getId();
+        if(feedback.getNote() != null) {
+            bookRepository.addRating(book.getId(), feedback.getNote());
+            // the rate is indexed for the rating facet
+            eventPublisher.publishEvent(new BookChangedEvent(book.getId()));
+        }
+        return feedbackId;
 
 
     }
 
 
-    public PageResponse<FeedbackResponse> findAllFeedbacksByBook(Integer bookId, int page, int size, Authentication connectedUser) {
+    public PageResponse<FeedbackResponse> findAllFeedbacksByBook(Integer bookId, int page, int size, boolean count, Authentication connectedUser) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
         User user = (User) connectedUser.getPrincipal();
-        Page<Feedback> feedbacks = feedbackRepository.findAllByBookId(bookId, pageable);
+        Slice<Feedback> feedbacks = count
+                ? feedbackRepository.findAllByBookId(bookId, pageable)
+                : feedbackRepository.findSliceByBookId(bookId, pageable);
         List<FeedbackResponse> feedbackResponses = feedbacks.stream()
                 .map(f -> feedbackMapper.toFeedbackResponse(f, user.getId()))
                 .toList();
 
-        return new PageResponse<>(
-                feedbackResponses,
-                feedbacks.getNumber(),
-                feedbacks.getSize(),
-                feedbacks.getTotalElements(),
-                feedbacks.getTotalPages(),
-                feedbacks.isFirst(),
-                feedbacks.isLast()
-        );
+        return PageResponse.of(feedbacks, feedbackResponses);
+    }
+
+    public CursorPageResponse<FeedbackResponse> findAllFeedbacksByBook(Integer bookId, String cursor, int size, Authentication connectedUser) {
+        User user = (User) connectedUser.getPrincipal();
+        PageCursor after = PageCursor.decode(cursor);
+        List<Feedback> feedbacks = feedbackRepository.findAllByBookIdAfter(
+                bookId, after.createdDate(), after.id(), PageRequest.of(0, size + 1));
+        return CursorPageResponse.of(
+                feedbacks,
+                size,
+                f -> new PageCursor(f.getCreatedDate(), f.getId()),
+                f -> feedbackMapper.toFeedbackResponse(f, user.getId()));
     }
 }
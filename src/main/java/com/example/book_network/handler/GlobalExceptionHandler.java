@@ -1,7 +1,11 @@
 package com.example.book_network.handler;
 
 import com.example.book_network.book.exception.OperationNotPremittedException;
+import com.example.book_network.book.exception.UploadLimitExceededException;
+import com.example.book_network.security.HashingCapacityExceededException;
 import jakarta.mail.MessagingException;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -116,6 +120,41 @@ public class GlobalExceptionHandler {
                 );
     }
 
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ResponseEntity<ExceptionResponse> handleException(EntityNotFoundException exp){
+        return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .body(
+                        ExceptionResponse.builder()
+                                .error(exp.getMessage())
+                                .build()
+                );
+    }
+
+    @ExceptionHandler(HashingCapacityExceededException.class)
+    public ResponseEntity<ExceptionResponse> handleException(HashingCapacityExceededException exp){
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(
+                        ExceptionResponse.builder()
+                                .error(exp.getMessage())
+                                .build()
+                );
+    }
+
+    @ExceptionHandler(UploadLimitExceededException.class)
+    public ResponseEntity<ExceptionResponse> handleException(UploadLimitExceededException exp){
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(
+                        ExceptionResponse.builder()
+                                .error(exp.getMessage())
+                                .build()
+                );
+    }
+
 
 
 }
@@ -2,26 +2,82 @@ package com.example.book_network.history;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface BookTransactionHistoryRepository extends JpaRepository<BookTransactionHistory, Integer> {
-    @Query("""
-        Select history
+    String BORROWED_BOOKS = """
+        Select new com.example.book_network.history.BorrowedBookSummary(
+            book.id, book.title, book.authorName, book.isbn, book.rate,
+            history.returned, history.returnApproved, history.id, history.createdDate)
         from BookTransactionHistory history
+        join history.book book
         where history.user.id = :userId
 
+""";
+
+    String RETURNED_BOOKS = """
+        Select new com.example.book_network.history.BorrowedBookSummary(
+            book.id, book.title, book.authorName, book.isbn, book.rate,
+            history.returned, history.returnApproved, history.id, history.createdDate)
+        from BookTransactionHistory history
+        join history.book book
+        where book.owner.id = :userId
+
+""";
+
+    @Query(value = BORROWED_BOOKS, countQuery = """
+        Select count(history)
+        from BookTransactionHistory history
+        where history.user.id = :userId
 """)
-    Page<BookTransactionHistory> findAllBorrowedBooks(Pageable pageable, Integer userId);
-    @Query("""
-        Select history
+    Page<BorrowedBookSummary> findAllBorrowedBooks(Pageable pageable, Integer userId);
+    // slice variants fetch one extra row to know if there is a next page and skip the count query
+    @Query(BORROWED_BOOKS)
+    Slice<BorrowedBookSummary> findBorrowedBooksSlice(Pageable pageable, Integer userId);
+    @Query(value = RETURNED_BOOKS, countQuery = """
+        Select count(history)
         from BookTransactionHistory history
         where history.book.owner.id = :userId
+""")
+    Page<BorrowedBookSummary> findAllReturnedBooks(Pageable pageable, Integer userId);
+    @Query(RETURNED_BOOKS)
+    Slice<BorrowedBookSummary> findReturnedBooksSlice(Pageable pageable, Integer userId);
+
 
+
+    // keyset variants: seek past the cursor instead of skipping rows with an offset, and never count.
+    // createdDate <= :createdDate repeats part of the OR so it can serve as the index scan start
+    @Query("""
+        Select new com.example.book_network.history.BorrowedBookSummary(
+            book.id, book.title, book.authorName, book.isbn, book.rate,
+            history.returned, history.returnApproved, history.id, history.createdDate)
+        from BookTransactionHistory history
+        join history.book book
+        where history.user.id = :userId
+        and history.createdDate <= :createdDate
+        and (history.createdDate < :createdDate or (history.createdDate = :createdDate and history.id < :id))
+        order by history.createdDate desc, history.id desc
 """)
-    Page<BookTransactionHistory> findAllReturnedBooks(Pageable pageable, Integer userId);
+    List<BorrowedBookSummary> findBorrowedBooksAfter(Integer userId, LocalDateTime createdDate, Integer id, Pageable pageable);
+
+    @Query("""
+        Select new com.example.book_network.history.BorrowedBookSummary(
+            book.id, book.title, book.authorName, book.isbn, book.rate,
+            history.returned, history.returnApproved, history.id, history.createdDate)
+        from BookTransactionHistory history
+        join history.book book
+        where book.owner.id = :userId
+        and history.createdDate <= :createdDate
+        and (history.createdDate < :createdDate or (history.createdDate = :createdDate and history.id < :id))
+        order by history.createdDate desc, history.id desc
+""")
+    List<BorrowedBookSummary> findReturnedBooksAfter(Integer userId, LocalDateTime createdDate, Integer id, Pageable pageable);
 
 
 
@@ -46,4 +102,7 @@ public interface BookTransactionHistoryRepository extends JpaRepository<BookTran
 
 """)
     Optional<BookTransactionHistory> findBookIdAndOwnerId(Integer bookId, Integer ownerId);
+
+    // anyone who borrowed the book once may still see its cover
+    boolean existsByBookIdAndUserId(Integer bookId, Integer userId);
 }
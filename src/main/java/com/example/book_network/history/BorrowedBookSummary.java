@@ -0,0 +1,22 @@
+package com.example.book_network.history;
+
+import com.example.book_network.book.PageCursor;
+
+import java.time.LocalDateTime;
+
+// the columns a borrowed book row needs, selected in one query instead of loading the entity graph
+public record BorrowedBookSummary(
+        Integer id,
+        String title,
+        String authorName,
+        String isbn,
+        double rate,
+        boolean returned,
+        boolean returnApproved,
+        Integer historyId,
+        LocalDateTime createdDate) {
+
+    public PageCursor cursor() {
+        return new PageCursor(createdDate, historyId);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.book_network.security;
+
+public class HashingCapacityExceededException extends RuntimeException {
+    public HashingCapacityExceededException(String s) {
+        super(s);
+
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.book_network.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Component
+@ConditionalOnProperty(name = "application.security.rate-limit.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimiterStore implements RateLimiterStore {
+
+    // caffeine is internally striped, idle buckets are dropped since they would be full again anyway
+    private final Cache<String, TokenBucket> buckets;
+
+    public InMemoryRateLimiterStore(RateLimitProperties properties) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxKeys())
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build();
+    }
+
+    @Override
+    public Probe tryConsume(String key, RateLimitProperties.Group group) {
+        long now = System.nanoTime();
+        return buckets.get(key, k -> new TokenBucket(group.getCapacity(), group.getRefillPerSecond(), now))
+                .tryConsume(now);
+    }
+
+    // lock-free: the state is swapped with a compare-and-set instead of synchronizing on the bucket
+    static class TokenBucket {
+
+        private final long capacity;
+        private final double tokensPerNano;
+        private final AtomicReference<State> state;
+
+        // starts full at the given nanoTime, the same clock tryConsume is called with
+        TokenBucket(long capacity, double refillPerSecond, long now) {
+            this.capacity = capacity;
+            this.tokensPerNano = refillPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.state = new AtomicReference<>(new State(capacity, now));
+        }
+
+        Probe tryConsume(long now) {
+            while (true) {
+                State current = state.get();
+                double tokens = Math.min(capacity, current.tokens() + (now - current.refilledAt()) * tokensPerNano);
+                if (tokens < 1) {
+                    long waitNanos = (long) Math.ceil((1 - tokens) / tokensPerNano);
+                    return new Probe(false, 0, Duration.ofNanos(waitNanos));
+                }
+                if (state.compareAndSet(current, new State(tokens - 1, now))) {
+                    return new Probe(true, (long) (tokens - 1), Duration.ZERO);
+                }
+            }
+        }
+
+        private record State(double tokens, long refilledAt) {
+        }
+    }
+}
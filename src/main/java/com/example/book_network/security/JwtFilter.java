@@ -1,10 +1,17 @@
 package com.example.book_network.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.PathContainer;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -13,48 +20,105 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Service;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
 public class JwtFilter extends OncePerRequestFilter {
 
+    // public routes never need the token, parsed once instead of matched with string scans per request
+    private static final List<PathPattern> BYPASS_PATTERNS = Arrays.stream(SecurityConfig.PUBLIC_PATHS)
+            .map(PathPatternParser.defaultInstance::parse)
+            .toList();
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final TokenDenylist tokenDenylist;
+    private final MeterRegistry meterRegistry;
+    // when enabled the principal is rebuilt from the verified claims instead of loading the user per request
+    @Value("${application.security.jwt.stateless-principal}")
+    private boolean statelessPrincipal;
+    private Timer authenticatedTimer;
+    private Timer anonymousTimer;
+
+    @PostConstruct
+    void initMetrics() {
+        authenticatedTimer = filterTimer("authenticated");
+        anonymousTimer = filterTimer("anonymous");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        PathContainer path = PathContainer.parsePath(request.getServletPath());
+        for(PathPattern pattern : BYPASS_PATTERNS) {
+            if(pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     protected void doFilterInternal(
             @NonNull HttpServletRequest request,
             @NonNull HttpServletResponse response,
             @NonNull FilterChain filterChain)
             throws ServletException, IOException {
-        if(request.getServletPath().contains("/api/v1/auth")){
-            filterChain.doFilter(request, response);
-            return;
+        long start = System.nanoTime();
+        boolean authenticated = authenticate(request);
+        // only the filter's own work is timed, not the rest of the chain
+        (authenticated ? authenticatedTimer : anonymousTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        filterChain.doFilter(request, response);
+    }
 
+    // every outcome falls through to the single doFilter call above
+    private boolean authenticate(HttpServletRequest request) {
+        if(SecurityContextHolder.getContext().getAuthentication() != null) {
+            return true;
         }
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String userEmail;
         if(authHeader == null || !authHeader.startsWith("Bearer ")){
-            filterChain.doFilter(request, response);
-            return;
+            return false;
         }
-        jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
-        if(userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null){
-            UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
-            if(jwtService.isTokenValid(jwt, userDetails)){
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities()
-                );
-                authToken.setDetails(
-                        new WebAuthenticationDetailsSource().buildDetails(request)
-                );
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
-            filterChain.doFilter(request, response);
-
+        final String jwt = authHeader.substring(7);
+        final Claims claims;
+        try {
+            // one parse verifies the signature and expiration and yields every claim
+            claims = jwtService.extractAllClaims(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
         }
+        final String userEmail = claims.getSubject();
+        if(userEmail == null || tokenDenylist.isRevoked(userEmail, claims.getIssuedAt())) {
+            return false;
+        }
+        UserDetails userDetails = statelessPrincipal
+                ? jwtService.extractUser(claims).map(UserDetails.class::cast)
+                        .orElseGet(() -> userDetailsService.loadUserByUsername(userEmail))
+                : userDetailsService.loadUserByUsername(userEmail);
+        if(!jwtService.isTokenValid(claims, userDetails)){
+            return false;
+        }
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                userDetails, null, userDetails.getAuthorities()
+        );
+        authToken.setDetails(
+                new WebAuthenticationDetailsSource().buildDetails(request)
+        );
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+        return true;
+    }
+
+    private Timer filterTimer(String outcome) {
+        return Timer.builder("security.filter")
+                .tag("filter", "jwt")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 }
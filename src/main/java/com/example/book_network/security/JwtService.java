@@ -1,9 +1,13 @@
 package com.example.book_network.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import com.example.book_network.role.Role;
+import com.example.book_network.user.User;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -12,7 +16,9 @@ import org.springframework.stereotype.Service;
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 @Service
@@ -22,6 +28,20 @@ public class JwtService {
     @Value("${application.security.jwt.expiration}")
     private long jwtExpiration;
 
+    // decoded once, the parser is immutable and safe to share between requests
+    private Key signInKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+        signInKey = Keys.hmacShaKeyFor(keyBytes);
+        jwtParser = Jwts
+                .parserBuilder()
+                .setSigningKey(signInKey)
+                .build();
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -58,34 +78,57 @@ public class JwtService {
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
                 .claim("authorities", authorities)
-                .signWith(getSignInKey())
+                .signWith(signInKey)
                 .compact();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(extractAllClaims(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    // checks claims that were already parsed, so a request verifies the signature only once
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return userDetails.getUsername().equals(claims.getSubject()) && !claims.getExpiration().before(new Date());
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
+    // verifies the signature and expiration, throws a JwtException for any invalid token
+    public Claims extractAllClaims(String token) {
+        return jwtParser
                 .parseClaimsJws(token)
                 .getBody();
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    // rebuilds the principal from verified claims without touching the database,
+    // empty for tokens issued before the user id was part of the claims.
+    // enabled and locked are not part of the token: a locked or disabled account keeps a valid access token
+    // until it expires (the refresh flow re-checks both), call TokenDenylist.revokeAllFor to cut it off at once
+    public Optional<User> extractUser(Claims claims) {
+        Integer userId = claims.get("userId", Integer.class);
+        if(userId == null) {
+            return Optional.empty();
+        }
+        List<?> authorities = claims.get("authorities", List.class);
+        List<Role> roles = authorities == null
+                ? List.of()
+                : authorities.stream()
+                        .map(authority -> Role.builder().name(String.valueOf(authority)).build())
+                        .toList();
+        // getFullName joins first and last name with a space, splitting at the first one gives the same full name back
+        String fullName = claims.get("fullName", String.class);
+        String firstName = fullName;
+        String lastName = null;
+        if(fullName != null && fullName.contains(" ")) {
+            firstName = fullName.substring(0, fullName.indexOf(' '));
+            lastName = fullName.substring(fullName.indexOf(' ') + 1);
+        }
+        return Optional.of(User.builder()
+                .id(userId)
+                .email(claims.getSubject())
+                .firstName(firstName)
+                .lastName(lastName)
+                .roles(roles)
+                .enabled(true)
+                .accountLocked(false)
+                .build());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,112 @@
+package com.example.book_network.security;
+
+import com.example.book_network.handler.ExceptionResponse;
+import com.example.book_network.user.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// runs after JwtFilter so authenticated requests are limited per user, anonymous ones per client ip
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitProperties properties;
+    private final RateLimiterStore store;
+    private final ObjectMapper objectMapper;
+    private final List<Route> routes;
+    private final Timer allowedTimer;
+    private final Timer rejectedTimer;
+
+    public RateLimitFilter(RateLimitProperties properties, RateLimiterStore store, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.allowedTimer = filterTimer(meterRegistry, "allowed");
+        this.rejectedTimer = filterTimer(meterRegistry, "rejected");
+        // parsed once instead of on every request
+        this.routes = properties.getGroups().stream()
+                .map(group -> new Route(PathPatternParser.defaultInstance.parse(group.getPattern()), group))
+                .toList();
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+        RateLimitProperties.Group group = properties.isEnabled() ? findGroup(request) : null;
+        if(group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long start = System.nanoTime();
+        var probe = store.tryConsume(group.getName() + ":" + resolveKey(request, group), group);
+        (probe.consumed() ? allowedTimer : rejectedTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if(probe.consumed()) {
+            response.setHeader("X-RateLimit-Remaining", String.valueOf(probe.remainingTokens()));
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long retryAfterSeconds = Math.max(1, (probe.retryAfter().toMillis() + 999) / 1000);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(
+                response.getOutputStream(),
+                ExceptionResponse.builder()
+                        .error("Too many requests, please try again later")
+                        .build()
+        );
+    }
+
+    private RateLimitProperties.Group findGroup(HttpServletRequest request) {
+        PathContainer path = PathContainer.parsePath(request.getServletPath());
+        for(Route route : routes) {
+            if(route.pattern().matches(path)) {
+                return route.group();
+            }
+        }
+        return null;
+    }
+
+    // getRemoteAddr honours server.forward-headers-strategy, raw X-Forwarded-For is never trusted here
+    private String resolveKey(HttpServletRequest request, RateLimitProperties.Group group) {
+        if(group.getKey() == RateLimitProperties.KeyType.USER) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if(authentication != null && authentication.getPrincipal() instanceof User user) {
+                return "user:" + user.getId();
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static Timer filterTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("security.filter")
+                .tag("filter", "rate-limit")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record Route(PathPattern pattern, RateLimitProperties.Group group) {
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.book_network.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "application.security.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    private long maxKeys = 100_000;
+    // first matching group wins, so the most specific patterns go first
+    private List<Group> groups = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Group {
+        private String name;
+        private String pattern;
+        private KeyType key = KeyType.USER;
+        private long capacity;
+        private double refillPerSecond;
+    }
+
+    public enum KeyType {
+        // the authenticated user id, falling back to the client ip for anonymous requests
+        USER,
+        IP
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.book_network.security;
+
+import java.time.Duration;
+
+// the in-memory store limits per instance, a shared implementation (e.g. redis) makes the limits cluster wide
+public interface RateLimiterStore {
+
+    Probe tryConsume(String key, RateLimitProperties.Group group);
+
+    record Probe(boolean consumed, long remainingTokens, Duration retryAfter) {
+    }
+}
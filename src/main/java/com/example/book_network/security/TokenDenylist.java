@@ -0,0 +1,32 @@
+package com.example.book_network.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+
+// one entry per revoked user instead of one per token: every token issued before the revocation is rejected.
+// entries only live as long as a token can, after that every older token has expired on its own
+@Component
+public class TokenDenylist {
+
+    private final Cache<String, Long> revokedBefore;
+
+    public TokenDenylist(@Value("${application.security.jwt.expiration}") long jwtExpiration) {
+        this.revokedBefore = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(jwtExpiration))
+                .build();
+    }
+
+    public void revokeAllFor(String username) {
+        revokedBefore.put(username, System.currentTimeMillis());
+    }
+
+    public boolean isRevoked(String username, Date issuedAt) {
+        Long revokedAt = revokedBefore.getIfPresent(username);
+        return revokedAt != null && (issuedAt == null || issuedAt.getTime() <= revokedAt);
+    }
+}
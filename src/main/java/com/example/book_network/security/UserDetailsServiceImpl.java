@@ -1,21 +1,64 @@
 package com.example.book_network.security;
 
+import com.example.book_network.user.User;
 import com.example.book_network.user.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
 
 @Service
-@RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository repository;
+    // short lived so lock or role changes made outside the application are picked up without an explicit eviction
+    private final Cache<String, User> users;
+
+    public UserDetailsServiceImpl(
+            UserRepository repository,
+            MeterRegistry meterRegistry,
+            @Value("${application.security.user-cache.max-size}") long maxSize,
+            @Value("${application.security.user-cache.ttl}") Duration ttl
+    ) {
+        this.repository = repository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "security.users");
+    }
+
+    // the repository call runs in its own read only transaction, a cache hit never opens one
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return repository.findByEmail(username)
+        User user = users.get(username, email -> repository.findByEmail(email).orElse(null));
+        if(user == null) {
+            throw new UsernameNotFoundException("User not found");
+        }
+        return user;
+    }
+
+    // called by the authentication provider after a login with an outdated hash
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = repository.findByEmail(userDetails.getUsername())
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        user.setPassword(newPassword);
+        repository.save(user);
+        evict(user.getEmail());
+        return user;
+    }
+
+    // call whenever enabled, locked or roles change for a user
+    public void evict(String username) {
+        users.invalidate(username);
     }
-}
\ No newline at end of file
+}
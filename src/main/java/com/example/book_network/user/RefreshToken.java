@@ -0,0 +1,44 @@
+package com.example.book_network.user;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(indexes = {
+        @Index(name = "ux_refresh_token_hash", columnList = "tokenHash", unique = true),
+        @Index(name = "ix_refresh_token_family", columnList = "familyId")
+})
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    private Integer id;
+    // only the sha-256 of the token is stored, a leaked table cannot be replayed
+    @Column(nullable = false, length = 64)
+    private String tokenHash;
+    // every token obtained by rotating the same login shares the family
+    @Column(nullable = false, length = 36)
+    private String familyId;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+    private LocalDateTime revokedAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "userId", nullable= false )
+    private User user;
+
+    public boolean isRevoked() {
+        return revokedAt != null;
+    }
+
+    public boolean isExpired() {
+        return LocalDateTime.now().isAfter(expiresAt);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.book_network.user;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Integer> {
+
+    @Query("""
+            SELECT token
+            FROM RefreshToken token
+            JOIN FETCH token.user
+            WHERE token.tokenHash = :tokenHash
+            """)
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    @Modifying
+    @Query("""
+            UPDATE RefreshToken token
+            SET token.revokedAt = :revokedAt
+            WHERE token.familyId = :familyId
+            AND token.revokedAt IS NULL
+            """)
+    int revokeFamily(String familyId, LocalDateTime revokedAt);
+
+    @Modifying
+    @Query("""
+            UPDATE RefreshToken token
+            SET token.revokedAt = :revokedAt
+            WHERE token.id = :id
+            AND token.revokedAt IS NULL
+            """)
+    int revoke(Integer id, LocalDateTime revokedAt);
+}
@@ -11,10 +11,12 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+// serves the lookup by token alone and by (token, user)
+@Table(indexes = @Index(name = "ix_token_token_user", columnList = "token, userId"))
 public class Token {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Integer id;
     private String token;
     private LocalDateTime expiresAt;
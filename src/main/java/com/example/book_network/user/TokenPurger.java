@@ -0,0 +1,37 @@
+package com.example.book_network.user;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenPurger {
+
+    private final TokenRepository tokenRepository;
+    @Value("${application.security.activation-token.purge-batch-size}")
+    private int batchSize;
+    // expired codes are kept for a while so activating with one still resends a fresh code
+    @Value("${application.security.activation-token.retention}")
+    private Duration retention;
+
+    @Scheduled(cron = "${application.security.activation-token.purge-cron}")
+    public void purgeExpiredTokens() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = tokenRepository.deleteExpiredBatch(cutoff, batchSize);
+            purged += deleted;
+        } while (deleted == batchSize);
+        if(purged > 0) {
+            log.info("Purged {} expired activation tokens", purged);
+        }
+    }
+}
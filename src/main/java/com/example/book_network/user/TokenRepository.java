@@ -1,11 +1,55 @@
 package com.example.book_network.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 
 public interface TokenRepository extends JpaRepository<Token, Integer>{
 
-    Optional<Token> findByToken(String token);
+    // 6 digit codes get reused over time, only the newest unused one is a candidate
+    Optional<Token> findFirstByTokenAndValidatedAtIsNullOrderByIdDesc(String token);
+
+    Optional<Token> findFirstByTokenAndUserEmailOrderByIdDesc(String token, String email);
+
+    // relies on ux_token_live: a code already held by an unused token inserts nothing and returns 0,
+    // without the constraint error that would abort the surrounding transaction.
+    // flushes first so the owning user row, when new, is already written
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO token (id, token, created_at, expires_at, user_id)
+            VALUES (nextval('token_seq'), :token, :createdAt, :expiresAt, :userId)
+            ON CONFLICT (token) WHERE validated_at IS NULL DO NOTHING
+            """, nativeQuery = true)
+    int insertIfUnused(String token, LocalDateTime createdAt, LocalDateTime expiresAt, Integer userId);
+
+    // an expired code that was never used still holds its slot in ux_token_live, marking it frees the code.
+    // activating with it by email still finds the row and resends a fresh code
+    @Modifying
+    @Query(value = """
+            UPDATE token
+            SET validated_at = expires_at
+            WHERE token = :token
+            AND validated_at IS NULL
+            AND expires_at < :now
+            """, nativeQuery = true)
+    int retireExpired(String token, LocalDateTime now);
+
+    // bounded so a large backlog is removed in short transactions instead of one long lock
+    @Modifying
+    @Transactional
+    @Query(value = """
+            DELETE FROM token
+            WHERE id IN (
+                SELECT id
+                FROM token
+                WHERE expires_at < :cutoff
+                LIMIT :batchSize
+            )
+            """, nativeQuery = true)
+    int deleteExpiredBatch(LocalDateTime cutoff, int batchSize);
 }
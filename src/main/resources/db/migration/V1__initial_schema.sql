@@ -0,0 +1,81 @@
+-- schema as hibernate generated it from the entities before flyway took over, databases created that way
+-- are baselined at this version. Everything added since lives in its own migration
+
+CREATE SEQUENCE IF NOT EXISTS role_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS book_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS feedback_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS book_transaction_history_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS token_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE _role (
+    id                 INTEGER      NOT NULL PRIMARY KEY,
+    name               VARCHAR(255) UNIQUE,
+    created_date       TIMESTAMP(6) NOT NULL,
+    last_modified_date TIMESTAMP(6)
+);
+
+CREATE TABLE _user (
+    id                 INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    first_name         VARCHAR(255),
+    last_name          VARCHAR(255),
+    date_of_birth      DATE,
+    email              VARCHAR(255) UNIQUE,
+    password           VARCHAR(255),
+    account_locked     BOOLEAN      NOT NULL,
+    enabled            BOOLEAN      NOT NULL,
+    created_date       TIMESTAMP(6) NOT NULL,
+    last_modified_date TIMESTAMP(6)
+);
+
+CREATE TABLE _user_roles (
+    users_id INTEGER NOT NULL REFERENCES _user (id),
+    roles_id INTEGER NOT NULL REFERENCES _role (id)
+);
+
+CREATE TABLE book (
+    id                   INTEGER      NOT NULL PRIMARY KEY,
+    created_date         TIMESTAMP(6) NOT NULL,
+    lasted_modified_date TIMESTAMP(6),
+    created_by           INTEGER      NOT NULL,
+    last_modified_by     INTEGER,
+    title                VARCHAR(255),
+    author_name          VARCHAR(255),
+    isbn                 VARCHAR(255),
+    synopsis             VARCHAR(255),
+    book_cover           VARCHAR(255),
+    archived             BOOLEAN      NOT NULL,
+    shareable            BOOLEAN      NOT NULL,
+    owner_id             INTEGER REFERENCES _user (id)
+);
+
+CREATE TABLE feedback (
+    id                   INTEGER      NOT NULL PRIMARY KEY,
+    created_date         TIMESTAMP(6) NOT NULL,
+    lasted_modified_date TIMESTAMP(6),
+    created_by           INTEGER      NOT NULL,
+    last_modified_by     INTEGER,
+    note                 DOUBLE PRECISION,
+    comment              VARCHAR(255),
+    book_id              INTEGER REFERENCES book (id)
+);
+
+CREATE TABLE book_transaction_history (
+    id                   INTEGER      NOT NULL PRIMARY KEY,
+    created_date         TIMESTAMP(6) NOT NULL,
+    lasted_modified_date TIMESTAMP(6),
+    created_by           INTEGER      NOT NULL,
+    last_modified_by     INTEGER,
+    user_id              INTEGER REFERENCES _user (id),
+    book_id              INTEGER REFERENCES book (id),
+    returned             BOOLEAN      NOT NULL,
+    return_approved      BOOLEAN      NOT NULL
+);
+
+CREATE TABLE token (
+    id           INTEGER NOT NULL PRIMARY KEY,
+    token        VARCHAR(255),
+    expires_at   TIMESTAMP(6),
+    created_at   TIMESTAMP(6),
+    validated_at TIMESTAMP(6),
+    user_id      INTEGER NOT NULL REFERENCES _user (id)
+);
@@ -0,0 +1,18 @@
+-- a book's rate was averaged from its feedbacks on every read, it is now stored on the row.
+-- existing books get the aggregate of the feedbacks they already have
+
+ALTER TABLE book ADD COLUMN IF NOT EXISTS rating_sum DOUBLE PRECISION NOT NULL DEFAULT 0;
+ALTER TABLE book ADD COLUMN IF NOT EXISTS rating_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE book ADD COLUMN IF NOT EXISTS rate DOUBLE PRECISION NOT NULL DEFAULT 0;
+
+UPDATE book
+SET rating_sum = aggregate.rating_sum,
+    rating_count = aggregate.rating_count,
+    rate = ROUND(CAST(aggregate.rating_sum / aggregate.rating_count AS numeric), 1)
+FROM (
+    SELECT book_id, SUM(note) AS rating_sum, COUNT(note) AS rating_count
+    FROM feedback
+    WHERE note IS NOT NULL
+    GROUP BY book_id
+) aggregate
+WHERE book.id = aggregate.book_id;
@@ -0,0 +1,8 @@
+-- weighted full text document of a book, kept up to date by postgres. Not mapped on the entity,
+-- queries reach it through the fts_match and fts_rank functions
+
+ALTER TABLE book ADD COLUMN IF NOT EXISTS search_vector TSVECTOR GENERATED ALWAYS AS (
+    setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('english', coalesce(author_name, '')), 'B') ||
+    setweight(to_tsvector('english', coalesce(synopsis, '')), 'C')
+) STORED;
@@ -0,0 +1,13 @@
+-- rotating refresh tokens, only the hash of a token is stored. Tokens issued from the same login share a family
+
+CREATE SEQUENCE IF NOT EXISTS refresh_token_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE refresh_token (
+    id         INTEGER     NOT NULL PRIMARY KEY,
+    token_hash VARCHAR(64) NOT NULL,
+    family_id  VARCHAR(36) NOT NULL,
+    created_at TIMESTAMP(6),
+    expires_at TIMESTAMP(6),
+    revoked_at TIMESTAMP(6),
+    user_id    INTEGER     NOT NULL REFERENCES _user (id)
+);
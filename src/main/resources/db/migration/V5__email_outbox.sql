@@ -0,0 +1,17 @@
+-- emails are queued in the same transaction as the change that triggers them and sent by the outbox dispatcher
+
+CREATE SEQUENCE IF NOT EXISTS outgoing_email_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE email_outbox (
+    id              INTEGER      NOT NULL PRIMARY KEY,
+    recipient       VARCHAR(255) NOT NULL,
+    subject         VARCHAR(255),
+    template_name   VARCHAR(255) NOT NULL,
+    variables       JSONB,
+    status          VARCHAR(16)  NOT NULL,
+    attempts        INTEGER      NOT NULL,
+    next_attempt_at TIMESTAMP(6),
+    last_error      VARCHAR(1000),
+    created_at      TIMESTAMP(6),
+    sent_at         TIMESTAMP(6)
+);
@@ -0,0 +1,50 @@
+-- one index per repository predicate. IF NOT EXISTS because earlier versions created some of them at startup
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- book: full text and fuzzy author search
+CREATE INDEX IF NOT EXISTS ix_book_search_vector ON book USING gin (search_vector);
+CREATE INDEX IF NOT EXISTS ix_book_author_name_trgm ON book USING gin (author_name gin_trgm_ops);
+
+-- book: displayable listing (shareable and not archived), one partial index per sort order.
+-- ix_book_displayable_created also serves the keyset queries and the displayable count
+CREATE INDEX IF NOT EXISTS ix_book_displayable_created ON book (created_date DESC, id DESC) WHERE shareable = true AND archived = false;
+CREATE INDEX IF NOT EXISTS ix_book_displayable_rate ON book (rate DESC, id DESC) WHERE shareable = true AND archived = false;
+CREATE INDEX IF NOT EXISTS ix_book_displayable_title ON book (title, id) WHERE shareable = true AND archived = false;
+
+-- book: owner listing, also covers every lookup by owner_id
+CREATE INDEX IF NOT EXISTS ix_book_owner_created ON book (owner_id, created_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS ix_book_owner_rate ON book (owner_id, rate DESC, id DESC);
+CREATE INDEX IF NOT EXISTS ix_book_owner_title ON book (owner_id, title, id);
+
+-- book: prefix filters and the cover garbage collector
+CREATE INDEX IF NOT EXISTS ix_book_author_name_prefix ON book (lower(author_name) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS ix_book_isbn_prefix ON book (isbn varchar_pattern_ops);
+CREATE INDEX IF NOT EXISTS ix_book_book_cover ON book (book_cover) WHERE book_cover IS NOT NULL;
+
+-- feedback: listing per book, newest first, and the rating reconciliation
+CREATE INDEX IF NOT EXISTS ix_feedback_book_created ON feedback (book_id, created_date DESC, id DESC);
+
+-- book_transaction_history: borrowed books of a user, covering so the history side is an index only scan
+CREATE INDEX IF NOT EXISTS ix_history_user_created ON book_transaction_history (user_id, created_date DESC, id DESC)
+    INCLUDE (book_id, returned, return_approved);
+-- returned books of an owner, reached through the owner's books
+CREATE INDEX IF NOT EXISTS ix_history_book_created ON book_transaction_history (book_id, created_date DESC, id DESC);
+-- transactions still waiting for the return approval: borrow checks, return and approval lookups
+CREATE INDEX IF NOT EXISTS ix_history_open ON book_transaction_history (book_id, user_id) WHERE return_approved = false;
+
+-- token: activation lookups and the purge job
+CREATE INDEX IF NOT EXISTS ix_token_token_user ON token (token, user_id);
+CREATE INDEX IF NOT EXISTS ix_token_expires_at ON token (expires_at);
+CREATE INDEX IF NOT EXISTS ix_token_user ON token (user_id);
+
+-- refresh_token: lookup by hash, revocation by family
+CREATE UNIQUE INDEX IF NOT EXISTS ux_refresh_token_hash ON refresh_token (token_hash);
+CREATE INDEX IF NOT EXISTS ix_refresh_token_family ON refresh_token (family_id);
+CREATE INDEX IF NOT EXISTS ix_refresh_token_user ON refresh_token (user_id);
+
+-- email_outbox: only pending rows are polled, sent and dead ones stay out of the index
+CREATE INDEX IF NOT EXISTS ix_email_outbox_due ON email_outbox (next_attempt_at, id) WHERE status = 'PENDING';
+
+-- join table of the eagerly loaded roles
+CREATE INDEX IF NOT EXISTS ix_user_roles_user ON _user_roles (users_id);
@@ -0,0 +1,7 @@
+-- _user moves from an identity column to a pooled sequence like the other entities.
+-- hibernate's pooled optimizer treats a fetched value as the top of a block of 50, so the sequence
+-- must start at least 50 above the current maximum id
+CREATE SEQUENCE IF NOT EXISTS user_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('user_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM _user), false);
+
+ALTER TABLE _user ALTER COLUMN id DROP IDENTITY IF EXISTS;
@@ -0,0 +1,20 @@
+-- an unused activation code is unique, so a lookup by code alone can never match another user's row.
+-- existing rows break that rule: expired codes were never marked and the same code could be handed out twice.
+-- expired codes are retired first, then only the newest holder of a still live code keeps it
+
+UPDATE token
+SET validated_at = expires_at
+WHERE validated_at IS NULL
+AND expires_at < now();
+
+UPDATE token
+SET validated_at = now()
+WHERE validated_at IS NULL
+AND id NOT IN (
+    SELECT MAX(id)
+    FROM token
+    WHERE validated_at IS NULL
+    GROUP BY token
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_token_live ON token (token) WHERE validated_at IS NULL;
@@ -0,0 +1,18 @@
+package com.example.book_network;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+// a throwaway postgres for tests that need the real schema, the datasource is pointed at it by @ServiceConnection
+@TestConfiguration(proxyBeanMethods = false)
+public class PostgresTestConfiguration {
+
+	@Bean
+	@ServiceConnection
+	PostgreSQLContainer<?> postgresContainer() {
+		return new PostgreSQLContainer<>("postgres:16-alpine");
+	}
+
+}
@@ -0,0 +1,27 @@
+package com.example.book_network;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// the context only starts once flyway migrated an empty database and hibernate validated the entities against it
+@SpringBootTest
+@Import(PostgresTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class SchemaMigrationTests {
+
+	@Autowired
+	private Flyway flyway;
+
+	@Test
+	void migrationsApplyAndMatchTheEntities() {
+		assertThat(flyway.info().pending()).isEmpty();
+		assertThat(flyway.info().applied()).hasSameSizeAs(flyway.info().all());
+	}
+
+}
@@ -0,0 +1,78 @@
+package com.example.book_network.book;
+
+import com.example.book_network.PostgresTestConfiguration;
+import com.example.book_network.user.User;
+import com.example.book_network.user.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// a catalogue import: ids come from the pooled sequence 50 at a time and the inserts go out in jdbc batches of 50,
+// so the statements sent grow with rows / 50 instead of with rows
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(PostgresTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class BookBulkInsertTests {
+
+	private static final Logger log = LoggerFactory.getLogger(BookBulkInsertTests.class);
+	private static final int ROWS = 5_000;
+	private static final int BATCH_SIZE = 50;
+
+	@Autowired
+	private BookRepository bookRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void insertsAreBatched() {
+		User owner = userRepository.save(User.builder()
+				.firstName("first")
+				.lastName("last")
+				.email(UUID.randomUUID() + "@mail.com")
+				.password("password")
+				.roles(List.of())
+				.build());
+		List<Book> books = new ArrayList<>();
+		for(int i = 0; i < ROWS; i++) {
+			books.add(Book.builder()
+					.title("title " + i)
+					.authorName("author " + i)
+					.isbn("isbn-" + i)
+					.synopsis("synopsis")
+					.shareable(true)
+					.owner(owner)
+					.createdBy(owner.getId())
+					.build());
+		}
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		long start = System.nanoTime();
+		transactionTemplate.executeWithoutResult(status -> bookRepository.saveAll(books));
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+		log.info("Inserted {} books in {} ms with {} statements", ROWS, elapsedMillis, statistics.getPrepareStatementCount());
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(ROWS);
+		// one sequence call and one insert batch per 50 rows
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2L * ROWS / BATCH_SIZE + 2);
+	}
+
+}
@@ -0,0 +1,144 @@
+package com.example.book_network.book;
+
+import com.example.book_network.PostgresTestConfiguration;
+import com.example.book_network.user.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// every filter and sort the list endpoints accept must be answerable from an index on book. The generated sql
+// is explained as a generic plan with sequential scans priced out, so a seq scan in the plan means no index fits.
+// the plan must walk the listing's index for the sort, or the listing's index for a range filter that narrows
+// the rows further. The prefix indexes never show up here: a bound pattern gives a generic plan no prefix to seek
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.book_network.book.CapturingStatementInspector")
+@Import(PostgresTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class BookFilterIndexUsageTests {
+
+	private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 0, 0);
+	private static final LocalDateTime TO = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+	@Autowired
+	private BookService bookService;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final Authentication connectedUser = new UsernamePasswordAuthenticationToken(
+			User.builder().id(1).build(), null, List.of());
+
+	@BeforeEach
+	void clearStatements() {
+		CapturingStatementInspector.clear();
+	}
+
+	static Stream<Arguments> filters() {
+		List<BookFilter> filters = new ArrayList<>();
+		for(BookSort sort : BookSort.values()) {
+			filters.add(new BookFilter(null, null, null, null, null, null, null, sort));
+			filters.add(new BookFilter("tolk", null, null, null, null, null, null, sort));
+			filters.add(new BookFilter(null, "978", null, null, null, null, null, sort));
+			filters.add(new BookFilter(null, null, 3.5, null, null, null, null, sort));
+			filters.add(new BookFilter(null, null, null, true, false, null, null, sort));
+			filters.add(new BookFilter(null, null, null, null, null, FROM, null, sort));
+			filters.add(new BookFilter(null, null, null, null, null, FROM, TO, sort));
+			filters.add(new BookFilter("tolk", "978", 3.5, true, false, FROM, TO, sort));
+		}
+		return filters.stream()
+				.flatMap(filter -> Stream.of(Arguments.of("displayable", filter), Arguments.of("owner", filter)));
+	}
+
+	@ParameterizedTest(name = "{0} {1}")
+	@MethodSource("filters")
+	void listingUsesAnIndex(String listing, BookFilter filter) {
+		if(listing.equals("owner")) {
+			bookService.findAllBooksByOwner(0, 10, false, filter, connectedUser);
+		} else {
+			bookService.findAllBooks(0, 10, false, filter, connectedUser);
+		}
+
+		List<String> statements = CapturingStatementInspector.statements();
+		assertThat(statements).hasSize(1);
+		String plan = explain(statements.get(0));
+		assertThat(plan).doesNotContain("Seq Scan on book ");
+		assertThat(plan).containsAnyOf(expectedIndexes(listing, filter));
+	}
+
+	private static String[] expectedIndexes(String listing, BookFilter filter) {
+		List<String> indexes = new ArrayList<>();
+		indexes.add(index(listing, filter.sortOrDefault()));
+		if(filter.createdFrom() != null || filter.createdTo() != null) {
+			indexes.add(index(listing, BookSort.NEWEST));
+		}
+		if(filter.minRate() != null) {
+			indexes.add(index(listing, BookSort.RATING));
+		}
+		return indexes.stream()
+				.distinct()
+				// "Index Scan using <name> on book" or "Bitmap Index Scan on <name>  (cost=..."
+				.map(index -> index + " ")
+				.toArray(String[]::new);
+	}
+
+	private static String index(String listing, BookSort sort) {
+		String column = switch(sort) {
+			case NEWEST -> "created";
+			case RATING -> "rate";
+			case TITLE -> "title";
+		};
+		return "ix_book_" + listing + "_" + column;
+	}
+
+	private String explain(String sql) {
+		String plan = toPositionalParameters(sql);
+		return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+			try(Statement statement = connection.createStatement()) {
+				statement.execute("SET enable_seqscan = off");
+				try {
+					StringBuilder lines = new StringBuilder();
+					try(ResultSet resultSet = statement.executeQuery("EXPLAIN (GENERIC_PLAN) " + plan)) {
+						while(resultSet.next()) {
+							lines.append(resultSet.getString(1)).append('\n');
+						}
+					}
+					return lines.toString();
+				} finally {
+					// the connection goes back to the pool, the next test must plan with the default settings
+					statement.execute("RESET enable_seqscan");
+				}
+			}
+		});
+	}
+
+	// hibernate binds with ?, a generic plan needs postgres' numbered $n parameters
+	private static String toPositionalParameters(String sql) {
+		StringBuilder result = new StringBuilder();
+		int parameter = 0;
+		for(char c : sql.toCharArray()) {
+			if(c == '?') {
+				result.append('$').append(++parameter);
+			} else {
+				result.append(c);
+			}
+		}
+		return result.toString();
+	}
+
+}
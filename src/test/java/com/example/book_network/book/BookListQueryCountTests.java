@@ -0,0 +1,230 @@
+package com.example.book_network.book;
+
+import com.example.book_network.PostgresTestConfiguration;
+import com.example.book_network.feedback.Feedback;
+import com.example.book_network.feedback.FeedbackRepository;
+import com.example.book_network.feedback.FeedbackService;
+import com.example.book_network.history.BookTransactionHistory;
+import com.example.book_network.history.BookTransactionHistoryRepository;
+import com.example.book_network.user.User;
+import com.example.book_network.user.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// every list endpoint must cost the same number of statements whatever the page holds: one for the rows,
+// one more when the total is asked for. More rows are seeded than fit on a page so the count really runs
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(PostgresTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BookListQueryCountTests {
+
+	private static final int ROWS = 15;
+	private static final int PAGE_SIZE = 10;
+	private static final BookFilter NO_FILTER = new BookFilter(null, null, null, null, null, null, null, null);
+	private static final BookFilter BY_AUTHOR = new BookFilter("author", null, null, null, null, null, null, BookSort.TITLE);
+
+	@Autowired
+	private BookService bookService;
+	@Autowired
+	private FeedbackService feedbackService;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private BookRepository bookRepository;
+	@Autowired
+	private BookTransactionHistoryRepository historyRepository;
+	@Autowired
+	private FeedbackRepository feedbackRepository;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+	private Authentication owner;
+	private Authentication reader;
+	private Integer bookId;
+
+	@BeforeAll
+	void seed() {
+		User ownerUser = userRepository.save(user());
+		User readerUser = userRepository.save(user());
+		List<Book> books = new ArrayList<>();
+		for(int i = 0; i < ROWS; i++) {
+			books.add(Book.builder()
+					.title("title " + i)
+					.authorName("author " + i)
+					.isbn("isbn-" + i)
+					.synopsis("synopsis")
+					.shareable(true)
+					.owner(ownerUser)
+					.createdBy(ownerUser.getId())
+					.build());
+		}
+		books = bookRepository.saveAll(books);
+		bookId = books.get(0).getId();
+		List<BookTransactionHistory> histories = new ArrayList<>();
+		List<Feedback> feedbacks = new ArrayList<>();
+		for(Book book : books) {
+			histories.add(BookTransactionHistory.builder()
+					.user(readerUser)
+					.book(book)
+					.createdBy(readerUser.getId())
+					.build());
+		}
+		for(int i = 0; i < ROWS; i++) {
+			feedbacks.add(Feedback.builder()
+					.note(4.0)
+					.comment("comment " + i)
+					.book(books.get(0))
+					.createdBy(readerUser.getId())
+					.build());
+		}
+		historyRepository.saveAll(histories);
+		feedbackRepository.saveAll(feedbacks);
+		owner = new UsernamePasswordAuthenticationToken(ownerUser, null, List.of());
+		reader = new UsernamePasswordAuthenticationToken(readerUser, null, List.of());
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		// the global displayable total is cached, load it once so every test sees the same statements
+		bookService.findAllBooks(0, PAGE_SIZE, true, NO_FILTER, reader);
+	}
+
+	@BeforeEach
+	void clearStatistics() {
+		statistics.clear();
+	}
+
+	@Test
+	void displayableBooksWithoutTotal() {
+		var page = bookService.findAllBooks(0, PAGE_SIZE, false, NO_FILTER, reader);
+
+		assertThat(page.getContent()).hasSize(PAGE_SIZE);
+		assertThat(page.getContent()).allSatisfy(book -> assertThat(book.getOwner()).isNotBlank());
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void displayableBooksWithTotal() {
+		var page = bookService.findAllBooks(0, PAGE_SIZE, true, NO_FILTER, reader);
+
+		assertThat(page.getTotalElements()).isNotNull();
+		// the rows and the caller's own displayable books, the global total comes from the cache
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void filteredDisplayableBooks() {
+		var page = bookService.findAllBooks(0, PAGE_SIZE, false, BY_AUTHOR, reader);
+
+		assertThat(page.getContent()).hasSize(PAGE_SIZE);
+		assertThat(page.getContent()).allSatisfy(book -> assertThat(book.getOwner()).isNotBlank());
+		assertThat(page.getTotalElements()).isNull();
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void filteredDisplayableBooksWithTotal() {
+		var page = bookService.findAllBooks(0, PAGE_SIZE, true, BY_AUTHOR, reader);
+
+		assertThat(page.getTotalElements()).isEqualTo(ROWS);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void displayableBooksByCursor() {
+		var page = bookService.findAllBooks((String) null, PAGE_SIZE, reader);
+
+		assertThat(page.getContent()).hasSize(PAGE_SIZE);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void ownerBooks() {
+		var slice = bookService.findAllBooksByOwner(0, PAGE_SIZE, false, NO_FILTER, owner);
+		var page = bookService.findAllBooksByOwner(0, PAGE_SIZE, true, NO_FILTER, owner);
+
+		assertThat(slice.getContent()).hasSize(PAGE_SIZE);
+		assertThat(page.getTotalElements()).isEqualTo(ROWS);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1 + 2);
+	}
+
+	@Test
+	void filteredOwnerBooks() {
+		var page = bookService.findAllBooksByOwner(0, PAGE_SIZE, false, BY_AUTHOR, owner);
+
+		assertThat(page.getContent()).hasSize(PAGE_SIZE);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void ownerBooksByCursor() {
+		var page = bookService.findAllBooksByOwner((String) null, PAGE_SIZE, owner);
+
+		assertThat(page.getContent()).hasSize(PAGE_SIZE);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void borrowedBooks() {
+		var slice = bookService.findAllBorrowerBooks(0, PAGE_SIZE, false, reader);
+		var page = bookService.findAllBorrowerBooks(0, PAGE_SIZE, true, reader);
+		var cursor = bookService.findAllBorrowerBooks((String) null, PAGE_SIZE, reader);
+
+		assertThat(slice.getContent()).hasSize(PAGE_SIZE);
+		assertThat(page.getTotalElements()).isEqualTo(ROWS);
+		assertThat(cursor.getContent()).hasSize(PAGE_SIZE);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1 + 2 + 1);
+	}
+
+	@Test
+	void returnedBooks() {
+		var slice = bookService.findAllReturnedBooks(0, PAGE_SIZE, false, owner);
+		var page = bookService.findAllReturnedBooks(0, PAGE_SIZE, true, owner);
+		var cursor = bookService.findAllReturnedBooks((String) null, PAGE_SIZE, owner);
+
+		assertThat(slice.getContent()).hasSize(PAGE_SIZE);
+		assertThat(page.getTotalElements()).isEqualTo(ROWS);
+		assertThat(cursor.getContent()).hasSize(PAGE_SIZE);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1 + 2 + 1);
+	}
+
+	@Test
+	void bookFeedbacks() {
+		var slice = feedbackService.findAllFeedbacksByBook(bookId, 0, PAGE_SIZE, false, owner);
+		var page = feedbackService.findAllFeedbacksByBook(bookId, 0, PAGE_SIZE, true, owner);
+		var cursor = feedbackService.findAllFeedbacksByBook(bookId, (String) null, PAGE_SIZE, owner);
+
+		assertThat(slice.getContent()).hasSize(PAGE_SIZE);
+		assertThat(page.getTotalElements()).isEqualTo(ROWS);
+		assertThat(cursor.getContent()).hasSize(PAGE_SIZE);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1 + 2 + 1);
+	}
+
+	private static User user() {
+		return User.builder()
+				.firstName("first")
+				.lastName("last")
+				.email(UUID.randomUUID() + "@mail.com")
+				.password("password")
+				.enabled(true)
+				.roles(List.of())
+				.build();
+	}
+
+}
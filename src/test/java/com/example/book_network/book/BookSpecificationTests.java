@@ -0,0 +1,60 @@
+package com.example.book_network.book;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.jpa.domain.Specification;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// the prefix filters must treat user input literally: \ % and _ are escaped and only the trailing % is a wildcard
+class BookSpecificationTests {
+
+	private Root<Book> root;
+	private CriteriaQuery<?> query;
+	private CriteriaBuilder criteriaBuilder;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void mockCriteria() {
+		root = mock(Root.class);
+		query = mock(CriteriaQuery.class);
+		criteriaBuilder = mock(CriteriaBuilder.class);
+		when(root.get(any(String.class))).thenReturn(mock(Path.class));
+		when(criteriaBuilder.lower(any())).thenReturn(mock(Expression.class));
+	}
+
+	@Test
+	void authorPrefixIsLowerCasedAndEscaped() {
+		assertThat(pattern(BookSpecification.authorStartsWith("Dr. 100%_Sure\\"))).isEqualTo("dr. 100\\%\\_sure\\\\%");
+	}
+
+	@Test
+	void isbnPrefixIsEscaped() {
+		assertThat(pattern(BookSpecification.isbnStartsWith("978_0%"))).isEqualTo("978\\_0\\%%");
+	}
+
+	@Test
+	void plainPrefixIsUnchanged() {
+		assertThat(pattern(BookSpecification.isbnStartsWith("978-3-16"))).isEqualTo("978-3-16%");
+	}
+
+	@SuppressWarnings("unchecked")
+	private String pattern(Specification<Book> specification) {
+		specification.toPredicate(root, query, criteriaBuilder);
+		ArgumentCaptor<String> pattern = ArgumentCaptor.forClass(String.class);
+		verify(criteriaBuilder).like(any(Expression.class), pattern.capture(), eq('\\'));
+		return pattern.getValue();
+	}
+
+}
@@ -0,0 +1,28 @@
+package com.example.book_network.book;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// records the sql hibernate sends so a test can explain it, registered through hibernate.session_factory.statement_inspector.
+// per thread, scheduled jobs running meanwhile must not show up in the test's statements
+public class CapturingStatementInspector implements StatementInspector {
+
+	private static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+	@Override
+	public String inspect(String sql) {
+		STATEMENTS.get().add(sql);
+		return sql;
+	}
+
+	static List<String> statements() {
+		return List.copyOf(STATEMENTS.get());
+	}
+
+	static void clear() {
+		STATEMENTS.get().clear();
+	}
+
+}
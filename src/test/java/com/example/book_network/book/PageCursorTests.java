@@ -0,0 +1,47 @@
+package com.example.book_network.book;
+
+import com.example.book_network.book.exception.OperationNotPremittedException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTests {
+
+	@Test
+	void decodesWhatItEncoded() {
+		PageCursor cursor = new PageCursor(LocalDateTime.of(2024, 3, 15, 10, 30, 5, 123_456_000), 42);
+
+		assertThat(PageCursor.decode(cursor.encode())).isEqualTo(cursor);
+	}
+
+	@Test
+	void encodesAsUrlSafeBase64WithoutPadding() {
+		String encoded = new PageCursor(LocalDateTime.of(2024, 3, 15, 10, 30), 7).encode();
+
+		assertThat(encoded).doesNotContain("=", "+", "/");
+	}
+
+	@Test
+	void missingCursorStartsBeforeEveryRow() {
+		PageCursor start = PageCursor.decode(null);
+
+		assertThat(PageCursor.decode("  ")).isEqualTo(start);
+		assertThat(start.createdDate()).isAfter(LocalDateTime.now().plusYears(1000));
+		assertThat(start.id()).isEqualTo(Integer.MAX_VALUE);
+	}
+
+	@Test
+	void rejectsMalformedCursors() {
+		String notADate = Base64.getUrlEncoder().encodeToString("yesterday|1".getBytes());
+		String noId = Base64.getUrlEncoder().encodeToString("2024-03-15T10:30".getBytes());
+
+		assertThatThrownBy(() -> PageCursor.decode("not base64!")).isInstanceOf(OperationNotPremittedException.class);
+		assertThatThrownBy(() -> PageCursor.decode(notADate)).isInstanceOf(OperationNotPremittedException.class);
+		assertThatThrownBy(() -> PageCursor.decode(noId)).isInstanceOf(OperationNotPremittedException.class);
+	}
+
+}
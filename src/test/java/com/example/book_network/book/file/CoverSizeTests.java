@@ -0,0 +1,39 @@
+package com.example.book_network.book.file;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoverSizeTests {
+
+	@Test
+	void variantReplacesTheExtensionWithTheSizeName() {
+		assertThat(CoverSize.CARD.variantPath("./upload/users/1/1212122.png")).isEqualTo("./upload/users/1/1212122_card.jpg");
+		assertThat(CoverSize.THUMBNAIL.variantPath("covers/ab/abcdef.jpeg")).isEqualTo("covers/ab/abcdef_thumbnail.jpg");
+		assertThat(CoverSize.FULL.variantPath("C:\\upload\\cover.webp")).isEqualTo("C:\\upload\\cover_full.jpg");
+	}
+
+	@Test
+	void onlyTheLastExtensionIsReplaced() {
+		assertThat(CoverSize.CARD.variantPath("covers/book.v2.png")).isEqualTo("covers/book.v2_card.jpg");
+	}
+
+	@Test
+	void dotsInDirectoriesAreNotTakenForAnExtension() {
+		assertThat(CoverSize.CARD.variantPath("./upload.d/cover")).isEqualTo("./upload.d/cover_card.jpg");
+		assertThat(CoverSize.CARD.variantPath("cover")).isEqualTo("cover_card.jpg");
+	}
+
+	@Test
+	void originalKeepsThePath() {
+		assertThat(CoverSize.ORIGINAL.variantPath("./upload/users/1/1212122.png")).isEqualTo("./upload/users/1/1212122.png");
+	}
+
+	@Test
+	void unknownSizesFallBackToTheOriginal() {
+		assertThat(CoverSize.from(" card ")).isEqualTo(CoverSize.CARD);
+		assertThat(CoverSize.from(null)).isEqualTo(CoverSize.ORIGINAL);
+		assertThat(CoverSize.from("huge")).isEqualTo(CoverSize.ORIGINAL);
+	}
+
+}
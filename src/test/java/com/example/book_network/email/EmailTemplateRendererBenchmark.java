@@ -0,0 +1,80 @@
+package com.example.book_network.email;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// emails rendered per second by the compiled templates, next to a full thymeleaf render of the same template
+// with its parsed form cached, which is what every email cost before.
+// not a test: surefire skips it, run its main method from the IDE after mvn test-compile
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailTemplateRendererBenchmark {
+
+	private static final String TEMPLATE = EmailTemplateName.ACTIVATE_ACCOUNT.getName();
+
+	private EmailTemplateRenderer renderer;
+	private TemplateEngine templateEngine;
+	private Map<String, Object> variables;
+
+	@Setup
+	public void setUp() {
+		renderer = new EmailTemplateRenderer();
+		renderer.compileTemplates();
+		ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+		resolver.setPrefix("templates/");
+		resolver.setSuffix(".HTML");
+		resolver.setTemplateMode(TemplateMode.HTML);
+		resolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		resolver.setCacheable(true);
+		templateEngine = new TemplateEngine();
+		templateEngine.setTemplateResolver(resolver);
+		variables = Map.of(
+				"username", "Jane Doe",
+				"confirmationUrl", "http://localhost:4200/activate-account",
+				"activationCode", "123456",
+				"subject", "Account activation");
+	}
+
+	@Benchmark
+	public String compiledTemplate() {
+		return renderer.render(TEMPLATE, variables);
+	}
+
+	@Benchmark
+	public String thymeleaf() {
+		Context context = new Context();
+		context.setVariables(variables);
+		return templateEngine.process(TEMPLATE, context);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(EmailTemplateRendererBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.example.book_network.email;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailTemplateRendererTests {
+
+	private EmailTemplateRenderer renderer;
+
+	@BeforeEach
+	void compile() {
+		renderer = new EmailTemplateRenderer();
+		renderer.compileTemplates();
+	}
+
+	@Test
+	void compiledTemplateRendersLikeThymeleaf() {
+		Map<String, Object> variables = Map.of(
+				"username", "Jane <Doe> & \"Co\"",
+				"confirmationUrl", "http://localhost:4200/activate-account?a=1&b=2",
+				"activationCode", "123456",
+				"subject", "Account activation");
+
+		assertThat(renderer.render(EmailTemplateName.ACTIVATE_ACCOUNT.getName(), variables))
+				.isEqualTo(thymeleaf(EmailTemplateName.ACTIVATE_ACCOUNT.getName(), variables));
+	}
+
+	@Test
+	void escapesVariablesInTextAndAttributes() {
+		Map<String, Object> variables = Map.of(
+				"username", "<script>alert(1)</script>",
+				"confirmationUrl", "\"><img src=x>",
+				"activationCode", "123456");
+
+		String html = renderer.render(EmailTemplateName.ACTIVATE_ACCOUNT.getName(), variables);
+
+		assertThat(html).doesNotContain("<script>", "<img");
+		assertThat(html).contains("Hello &lt;script&gt;alert(1)&lt;/script&gt;,");
+		assertThat(html).contains("href=\"&quot;&gt;&lt;img src=x&gt;\"");
+	}
+
+	@Test
+	void fillsEverySlotEvenWhenVariablesAreMissing() {
+		Map<String, Object> variables = new HashMap<>();
+		variables.put("activationCode", "654321");
+
+		String html = renderer.render(EmailTemplateName.ACTIVATE_ACCOUNT.getName(), variables);
+
+		assertThat(html).contains("<span>654321</span>");
+		assertThat(html).doesNotContain("@@email-var-");
+	}
+
+	@Test
+	void acceptsTheEnumNameOfOlderOutboxRows() {
+		Map<String, Object> variables = Map.of("username", "Jane", "activationCode", "123456");
+
+		assertThat(renderer.render(EmailTemplateName.ACTIVATE_ACCOUNT.name(), variables))
+				.isEqualTo(renderer.render(EmailTemplateName.ACTIVATE_ACCOUNT.getName(), variables));
+	}
+
+	private static String thymeleaf(String template, Map<String, Object> variables) {
+		ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+		resolver.setPrefix("templates/");
+		resolver.setSuffix(".HTML");
+		resolver.setTemplateMode(TemplateMode.HTML);
+		resolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		TemplateEngine templateEngine = new TemplateEngine();
+		templateEngine.setTemplateResolver(resolver);
+		Context context = new Context();
+		context.setVariables(variables);
+		return templateEngine.process(template, context);
+	}
+
+}
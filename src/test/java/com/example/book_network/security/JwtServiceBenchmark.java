@@ -0,0 +1,107 @@
+package com.example.book_network.security;
+
+import com.example.book_network.role.Role;
+import com.example.book_network.user.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.security.SecureRandom;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// cost of verifying the access token of one request, as JwtFilter does it, next to the way it was done before:
+// the key decoded and the parser built again for each of the three parses a request used to trigger.
+// not a test: surefire skips it, run its main method from the IDE after mvn test-compile
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+	private JwtService jwtService;
+	private String secretKey;
+	private User user;
+	private String token;
+
+	@Setup
+	public void setUp() {
+		byte[] keyBytes = new byte[32];
+		new SecureRandom().nextBytes(keyBytes);
+		secretKey = Encoders.BASE64.encode(keyBytes);
+		jwtService = new JwtService();
+		ReflectionTestUtils.setField(jwtService, "secretKey", secretKey);
+		ReflectionTestUtils.setField(jwtService, "jwtExpiration", TimeUnit.MINUTES.toMillis(15));
+		jwtService.init();
+		user = User.builder()
+				.id(42)
+				.firstName("Jane")
+				.lastName("Doe")
+				.email("jane.doe@mail.com")
+				.roles(List.of(Role.builder().name("USER").build()))
+				.build();
+		Map<String, Object> claims = new HashMap<>();
+		claims.put("fullName", user.getFullName());
+		claims.put("userId", user.getId());
+		token = jwtService.generateToken(claims, user);
+	}
+
+	@Benchmark
+	public void verifyRequest(Blackhole blackhole) {
+		Claims claims = jwtService.extractAllClaims(token);
+		blackhole.consume(jwtService.isTokenValid(claims, user));
+		blackhole.consume(jwtService.extractUser(claims));
+	}
+
+	@Benchmark
+	public void verifyRequestRebuildingParser(Blackhole blackhole) {
+		String username = parse(token).getSubject();
+		blackhole.consume(username.equals(user.getUsername()));
+		blackhole.consume(parse(token).getSubject().equals(username) && !parse(token).getExpiration().before(new Date()));
+	}
+
+	@Benchmark
+	public String generateToken() {
+		return jwtService.generateToken(user);
+	}
+
+	private Claims parse(String token) {
+		Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+		return Jwts.parserBuilder()
+				.setSigningKey(key)
+				.build()
+				.parseClaimsJws(token)
+				.getBody();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(JwtServiceBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.example.book_network.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTests {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+	// any fixed point works, the buckets only look at elapsed time
+	private static final long NOW = 1_000 * SECOND;
+
+	@Test
+	void startsFullAndRejectsOnceEmpty() {
+		var bucket = new InMemoryRateLimiterStore.TokenBucket(3, 1, NOW);
+
+		assertThat(bucket.tryConsume(NOW).remainingTokens()).isEqualTo(2);
+		assertThat(bucket.tryConsume(NOW).remainingTokens()).isEqualTo(1);
+		assertThat(bucket.tryConsume(NOW).remainingTokens()).isZero();
+		RateLimiterStore.Probe rejected = bucket.tryConsume(NOW);
+
+		assertThat(rejected.consumed()).isFalse();
+		assertThat(rejected.retryAfter().toNanos()).isEqualTo(SECOND);
+	}
+
+	@Test
+	void refillsInProportionToElapsedTime() {
+		var bucket = new InMemoryRateLimiterStore.TokenBucket(10, 2, NOW);
+		for(int i = 0; i < 10; i++) {
+			bucket.tryConsume(NOW);
+		}
+
+		// two tokens per second: 1.6 seconds bring back 3.2, one is taken right away
+		RateLimiterStore.Probe probe = bucket.tryConsume(NOW + SECOND * 8 / 5);
+
+		assertThat(probe.consumed()).isTrue();
+		assertThat(probe.remainingTokens()).isEqualTo(2);
+	}
+
+	@Test
+	void retryAfterIsTheTimeToTheNextWholeToken() {
+		var bucket = new InMemoryRateLimiterStore.TokenBucket(1, 4, NOW);
+		bucket.tryConsume(NOW);
+
+		RateLimiterStore.Probe probe = bucket.tryConsume(NOW + SECOND / 8);
+
+		assertThat(probe.consumed()).isFalse();
+		// half a token is left to refill at four per second
+		assertThat(probe.retryAfter().toNanos()).isEqualTo(SECOND / 8);
+	}
+
+	@Test
+	void neverRefillsPastCapacity() {
+		var bucket = new InMemoryRateLimiterStore.TokenBucket(5, 100, NOW);
+		bucket.tryConsume(NOW);
+
+		assertThat(bucket.tryConsume(NOW + SECOND * 60).remainingTokens()).isEqualTo(4);
+	}
+
+	@Test
+	void concurrentConsumersNeverOverdraw() throws Exception {
+		int capacity = 1_000;
+		var bucket = new InMemoryRateLimiterStore.TokenBucket(capacity, 0.000_001, NOW);
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Integer>> results = new ArrayList<>();
+		for(int t = 0; t < threads; t++) {
+			results.add(executor.submit(() -> {
+				start.await();
+				int consumed = 0;
+				for(int i = 0; i < capacity; i++) {
+					if(bucket.tryConsume(NOW).consumed()) {
+						consumed++;
+					}
+				}
+				return consumed;
+			}));
+		}
+		start.countDown();
+		int total = 0;
+		for(Future<Integer> result : results) {
+			total += result.get(10, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		assertThat(total).isEqualTo(capacity);
+	}
+
+}